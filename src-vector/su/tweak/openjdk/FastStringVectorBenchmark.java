@@ -0,0 +1,128 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Vector API kernels against the scalar FastStringLatin1/FastStringUTF16
+ * kernels and java String.
+ *
+ * mvn -Pvector clean install exec:exec
+ *
+ * The jdk.incubator.vector module must be resolved, otherwise the vector
+ * benchmarks fail with NullPointerException.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringVectorBenchmark {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789-_.";
+
+	private static final FastStringVector VECTOR = FastStringVector.KERNELS;
+
+	@Param({ "16", "64", "256", "4096" })
+	public int length;
+
+	private String _string;
+	private String string;
+
+	private FastString _fastString;
+	private FastString fastString;
+
+	private byte[] _latin1Bytes;
+	private byte[] latin1Bytes;
+
+	private byte[] _utf16Bytes;
+	private byte[] utf16Bytes;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(i % ALPHABET.length()));
+		}
+		string = sb.toString();
+		_string = string.toUpperCase();
+
+		fastString = new FastString(string.toCharArray());
+		_fastString = new FastString(_string.toCharArray());
+
+		latin1Bytes = string.getBytes(StandardCharsets.ISO_8859_1);
+		_latin1Bytes = _string.getBytes(StandardCharsets.ISO_8859_1);
+
+		utf16Bytes = FastStringUTF16.toBytes(string.toCharArray(), 0, length);
+		_utf16Bytes = FastStringUTF16.toBytes(_string.toCharArray(), 0, length);
+	}
+
+	@Benchmark
+	public boolean string() {
+		return string.equalsIgnoreCase(_string);
+	}
+
+	/*
+	 * FastString dispatches to the vector kernels when they are loaded
+	 */
+	@Benchmark
+	public boolean fast() {
+		return fastString.equalsIgnoreCase(_fastString);
+	}
+
+	@Benchmark
+	public boolean latin1Scalar() {
+		return FastStringLatin1.fullMatchesCI(latin1Bytes, _latin1Bytes, length);
+	}
+
+	@Benchmark
+	public boolean latin1Vector() {
+		return VECTOR.regionMatchesCILatin1(latin1Bytes, 0, _latin1Bytes, 0, length);
+	}
+
+	@Benchmark
+	public boolean utf16Scalar() {
+		return FastStringUTF16.fullMatchesCI(utf16Bytes, _utf16Bytes, length);
+	}
+
+	@Benchmark
+	public boolean utf16Vector() {
+		return VECTOR.regionMatchesCIUTF16(utf16Bytes, 0, _utf16Bytes, 0, length);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringVectorBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
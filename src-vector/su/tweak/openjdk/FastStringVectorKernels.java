@@ -0,0 +1,122 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels, see {@link FastStringVector}.
+ *
+ * Every step loads a full vector of both regions. Equal vectors are
+ * skipped, otherwise ASCII upper case letters are folded to lower case in
+ * both and the vectors are compared again. A mismatch in a lane where both
+ * chars are ASCII is final, a mismatch which involves a non-ASCII char is
+ * resolved by the scalar kernel for that vector only.
+ */
+final class FastStringVectorKernels extends FastStringVector {
+
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+	private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+	/*
+	 * Reinterpreting bytes as shorts uses little endian order, which must
+	 * match the byte order of FastStringUTF16.putChar, the native one.
+	 */
+	private static final boolean UTF16_LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+	/*
+	 * Does not use the static fields: FastStringVector creates the kernels
+	 * from its static initializer, which may run while this class is
+	 * being initialized.
+	 */
+	@Override
+	int threshold() {
+		return ShortVector.SPECIES_PREFERRED.length();
+	}
+
+	@Override
+	boolean regionMatchesCILatin1(byte[] value, int toffset, byte[] other, int ooffset, int len) {
+		int step = BYTES.length();
+		int last = toffset + len;
+		for (int limit = last - step; toffset <= limit; toffset += step, ooffset += step) {
+			ByteVector v1 = ByteVector.fromArray(BYTES, value, toffset);
+			ByteVector v2 = ByteVector.fromArray(BYTES, other, ooffset);
+			if (!v1.compare(VectorOperators.NE, v2).anyTrue()) {
+				continue;
+			}
+			VectorMask<Byte> ne = toLowerCaseAscii(v1).compare(VectorOperators.NE, toLowerCaseAscii(v2));
+			if (!ne.anyTrue()) {
+				continue;
+			}
+			// Non-ASCII Latin1 chars are negative bytes
+			VectorMask<Byte> nonAscii = v1.or(v2).compare(VectorOperators.LT, (byte) 0);
+			if (ne.andNot(nonAscii).anyTrue()
+					|| !FastStringLatin1.regionMatchesCI(value, toffset, other, ooffset, step)) {
+				return false;
+			}
+		}
+		return FastStringLatin1.regionMatchesCI(value, toffset, other, ooffset, last - toffset);
+	}
+
+	@Override
+	boolean regionMatchesCIUTF16(byte[] value, int toffset, byte[] other, int ooffset, int len) {
+		if (!UTF16_LITTLE_ENDIAN) {
+			return FastStringUTF16.regionMatchesCI(value, toffset, other, ooffset, len);
+		}
+		int step = SHORTS.length();
+		int last = toffset + len;
+		for (int limit = last - step; toffset <= limit; toffset += step, ooffset += step) {
+			ShortVector v1 = ByteVector.fromArray(BYTES, value, toffset << 1).reinterpretAsShorts();
+			ShortVector v2 = ByteVector.fromArray(BYTES, other, ooffset << 1).reinterpretAsShorts();
+			if (!v1.compare(VectorOperators.NE, v2).anyTrue()) {
+				continue;
+			}
+			VectorMask<Short> ne = toLowerCaseAscii(v1).compare(VectorOperators.NE, toLowerCaseAscii(v2));
+			if (!ne.anyTrue()) {
+				continue;
+			}
+			VectorMask<Short> nonAscii = v1.or(v2).lanewise(VectorOperators.AND, (short) 0xff80)
+					.compare(VectorOperators.NE, (short) 0);
+			if (ne.andNot(nonAscii).anyTrue()
+					|| !FastStringUTF16.regionMatchesCI(value, toffset, other, ooffset, step)) {
+				return false;
+			}
+		}
+		return FastStringUTF16.regionMatchesCI(value, toffset, other, ooffset, last - toffset);
+	}
+
+	private static ByteVector toLowerCaseAscii(ByteVector v) {
+		VectorMask<Byte> upper = v.compare(VectorOperators.GE, (byte) 'A')
+				.and(v.compare(VectorOperators.LE, (byte) 'Z'));
+		return v.lanewise(VectorOperators.OR, (byte) 0x20, upper);
+	}
+
+	private static ShortVector toLowerCaseAscii(ShortVector v) {
+		VectorMask<Short> upper = v.compare(VectorOperators.GE, (short) 'A')
+				.and(v.compare(VectorOperators.LE, (short) 'Z'));
+		return v.lanewise(VectorOperators.OR, (short) 0x20, upper);
+	}
+
+}
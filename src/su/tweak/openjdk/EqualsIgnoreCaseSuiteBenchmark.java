@@ -0,0 +1,172 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * equalsIgnoreCase(...) of String, FastString and Jdk9String over the
+ * length, coder, case pattern and mismatch position axes.
+ *
+ * <ul>
+ * <li>coder: LATIN1 - both strings are Latin1, UTF16 - both are UTF16
+ * (Cyrillic), MIXED - the left string is Latin1 and the right one UTF16:
+ * every 8th char is 'ÿ' on the left and 'Ÿ' on the right. Jdk9String is
+ * always UTF16 coded.
+ * <li>casePattern: IDENTICAL - same chars (but for the MIXED 'ÿ'/'Ÿ'),
+ * DIFFERENT_CASE - the right string is in upper case, ALL_DIFFERENT - every
+ * char of the right string differs, so mismatch is meaningless.
+ * <li>mismatch: the char of the left string at that position is replaced
+ * with one which differs ignoring case, NONE keeps the strings equal.
+ * </ul>
+ *
+ * The full cross product is large, restrict it with -p, e.g.
+ * {@code -p coder=LATIN1 -p mismatch=NONE}. main() writes JMH JSON results
+ * for regression tracking, to the file given as the first argument or to
+ * equals-ignore-case-suite.json.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EqualsIgnoreCaseSuiteBenchmark {
+
+	private static final String LATIN1_TEXT = "abcdefghijklmnopqrstuvwxyzàéîõü0123456789-_";
+
+	private static final String UTF16_TEXT = "абвгдеёжзийклмнопрстуфхцчшщъыьэюя0123456789-_";
+
+	@Param({ "1", "8", "64", "512", "4096", "65536" })
+	public int length;
+
+	@Param({ "LATIN1", "UTF16", "MIXED" })
+	public String coder;
+
+	@Param({ "IDENTICAL", "DIFFERENT_CASE", "ALL_DIFFERENT" })
+	public String casePattern;
+
+	@Param({ "NONE", "FIRST", "MIDDLE", "LAST" })
+	public String mismatch;
+
+	private String left;
+	private String right;
+
+	private FastString leftFast;
+	private FastString rightFast;
+
+	private Jdk9String leftJdk9;
+	private Jdk9String rightJdk9;
+
+	@Setup
+	public void setup() {
+		boolean utf16 = "UTF16".equals(coder);
+		boolean mixed = "MIXED".equals(coder);
+		String text = utf16 ? UTF16_TEXT : LATIN1_TEXT;
+
+		char[] l = new char[length];
+		for (int i = 0; i < length; i++) {
+			l[i] = (mixed && (i & 7) == 0) ? 'ÿ' : text.charAt(i % text.length());
+		}
+		char[] r = l.clone();
+		switch (casePattern) {
+		case "IDENTICAL":
+			break;
+		case "DIFFERENT_CASE":
+			for (int i = 0; i < length; i++) {
+				r[i] = Character.toUpperCase(r[i]);
+			}
+			break;
+		case "ALL_DIFFERENT":
+			for (int i = 0; i < length; i++) {
+				r[i] = (utf16 || mixed) ? '№' : '#';
+			}
+			break;
+		default:
+			throw new IllegalArgumentException(casePattern);
+		}
+		if (mixed) {
+			for (int i = 0; i < length; i += 8) {
+				r[i] = 'Ÿ';
+			}
+		}
+		int position;
+		switch (mismatch) {
+		case "NONE":
+			position = -1;
+			break;
+		case "FIRST":
+			position = 0;
+			break;
+		case "MIDDLE":
+			position = length / 2;
+			break;
+		case "LAST":
+			position = length - 1;
+			break;
+		default:
+			throw new IllegalArgumentException(mismatch);
+		}
+		if (position >= 0) {
+			// keeps the coder of the left string
+			l[position] = utf16 ? '№' : '#';
+		}
+
+		left = new String(l);
+		right = new String(r);
+		leftFast = new FastString(l);
+		rightFast = new FastString(r);
+		leftJdk9 = new Jdk9String(l);
+		rightJdk9 = new Jdk9String(r);
+	}
+
+	@Benchmark
+	public boolean string() {
+		return left.equalsIgnoreCase(right);
+	}
+
+	@Benchmark
+	public boolean fast() {
+		return leftFast.equalsIgnoreCase(rightFast);
+	}
+
+	@Benchmark
+	public boolean jdk9() {
+		return leftJdk9.equalsIgnoreCase(rightJdk9);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String result = (args.length > 0) ? args[0] : "equals-ignore-case-suite.json";
+		Options opt = new OptionsBuilder().include(EqualsIgnoreCaseSuiteBenchmark.class.getSimpleName()).forks(1)
+				.resultFormat(ResultFormatType.JSON).result(result).build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -43,6 +43,13 @@
 package su.tweak.openjdk;
 
 import java.io.ObjectStreamField;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Fast equalsIgnoreCase(FastString anotherString) test
@@ -70,6 +77,12 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
 	/** Cache the hash code for the string */
 	private int hash; // Default to 0
 
+	/** Cache the case insensitive hash code for the string */
+	private int hashIgnoreCase; // Default to 0
+
+	/** The case keys of the chars, only set by {@link #folded(FastString)} */
+	private byte[] folded; // Default to null
+
 	/** use serialVersionUID from JDK 1.0.2 for interoperability */
 	private static final long serialVersionUID = -6849794470754667710L;
 
@@ -150,6 +163,8 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
         this.value = original.value;
         this.coder = original.coder;
         this.hash = original.hash;
+        this.hashIgnoreCase = original.hashIgnoreCase;
+        this.folded = original.folded;
 	}
 
     /*
@@ -162,6 +177,14 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
      * characters in their byte sequences defined by the {@code FastStringUTF16}.
      */
 	FastString(char[] value, int off, int len) {
+        if (COMPACT_STRINGS) {
+            byte[] val = FastStringUTF16.compress(value, off, len);
+            if (val != null) {
+                this.value = val;
+                this.coder = LATIN1;
+                return;
+            }
+        }
         this.coder = UTF16;
         this.value = FastStringUTF16.toBytes(value, off, len);
     }
@@ -179,6 +202,218 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
         this(value, 0, value.length);
     }
 
+    /*
+     * Package private constructor which shares value array for speed.
+     */
+    FastString(byte[] value, byte coder) {
+        this.value = value;
+        this.coder = coder;
+    }
+
+    /**
+     * Returns a string with the same value as the argument, which carries
+     * a case folded copy of its value: every char {@code c} replaced by
+     * {@code Character.toLowerCase(Character.toUpperCase(c))}, Latin1
+     * coded if all of them fit. {@link #equalsIgnoreCase(FastString)} of
+     * two folded strings compares the folded copies with
+     * {@link Arrays#equals(byte[], byte[])}.
+     *
+     * <p>The fold is paid once, along with another array of the length of
+     * the string (twice that if a case key is not Latin1). It pays off for
+     * keys which are compared many times.
+     *
+     * @param  s
+     *         the string to fold
+     *
+     * @return  {@code s} if it is folded already, otherwise a new folded
+     *          string which shares the value of {@code s}
+     */
+    public static FastString folded(FastString s) {
+        if (s.folded != null) {
+            return s;
+        }
+        FastString f = new FastString(s);
+        byte[] folded = s.isLatin1() ? FastStringLatin1.foldCase(s.value)
+                                     : FastStringUTF16.foldCase(s.value);
+        f.folded = folded;
+        // the case insensitive hash is the hash of the case keys
+        f.hashIgnoreCase = (folded.length == s.length()) ? FastStringLatin1.hashCode(folded)
+                                                         : FastStringUTF16.hashCode(folded);
+        return f;
+    }
+
+    /**
+     * @return  {@code true} if this string was created by
+     *          {@link #folded(FastString)}
+     */
+    public boolean isFolded() {
+        return folded != null;
+    }
+
+    /**
+     * Constructs a new {@code FastString} by decoding the specified
+     * subarray of bytes as UTF-8, like {@code new String(bytes, offset,
+     * length, UTF_8)} does, but straight into the value of the string: it
+     * is Latin1 coded if every decoded char fits, otherwise UTF16 coded.
+     *
+     * <p>ASCII input is a plain copy. Malformed input and unmappable
+     * sequences are replaced with U+FFFD.
+     *
+     * @param  bytes
+     *         The bytes to be decoded
+     *
+     * @param  offset
+     *         The index of the first byte to decode
+     *
+     * @param  length
+     *         The number of bytes to decode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If {@code offset} and {@code length} are out of the bounds
+     *          of {@code bytes}
+     */
+    public static FastString fromUtf8(byte[] bytes, int offset, int length) {
+        checkBoundsOffCount(offset, length, bytes.length);
+        return FastStringCoding.decodeUTF8(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    /**
+     * Decodes UTF-8 bytes of a buffer, see {@link #fromUtf8(byte[], int, int)}.
+     *
+     * @param  buffer
+     *         The buffer, its position, limit and byte order are ignored
+     *
+     * @param  offset
+     *         The absolute index of the first byte to decode
+     *
+     * @param  length
+     *         The number of bytes to decode
+     */
+    public static FastString fromUtf8(ByteBuffer buffer, int offset, int length) {
+        return FastStringCoding.decodeUTF8(FastStringCoding.copyOf(buffer, offset, length));
+    }
+
+    /**
+     * Constructs a new Latin1 coded {@code FastString} from ISO-8859-1
+     * bytes, which is a plain copy of them.
+     *
+     * @param  bytes
+     *         The bytes to be decoded
+     *
+     * @param  offset
+     *         The index of the first byte to decode
+     *
+     * @param  length
+     *         The number of bytes to decode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If {@code offset} and {@code length} are out of the bounds
+     *          of {@code bytes}
+     */
+    public static FastString fromLatin1(byte[] bytes, int offset, int length) {
+        checkBoundsOffCount(offset, length, bytes.length);
+        return new FastString(Arrays.copyOfRange(bytes, offset, offset + length), LATIN1);
+    }
+
+    /**
+     * Decodes ISO-8859-1 bytes of a buffer, see
+     * {@link #fromLatin1(byte[], int, int)}.
+     *
+     * @param  buffer
+     *         The buffer, its position, limit and byte order are ignored
+     *
+     * @param  offset
+     *         The absolute index of the first byte to decode
+     *
+     * @param  length
+     *         The number of bytes to decode
+     */
+    public static FastString fromLatin1(ByteBuffer buffer, int offset, int length) {
+        return new FastString(FastStringCoding.copyOf(buffer, offset, length), LATIN1);
+    }
+
+    /**
+     * Compares this string to the specified object.  The result is {@code
+     * true} if and only if the argument is not {@code null} and is a {@code
+     * FastString} object that represents the same sequence of characters as
+     * this object.
+     *
+     * @param  anObject
+     *         The object to compare this {@code FastString} against
+     *
+     * @return  {@code true} if the given object represents a {@code FastString}
+     *          equivalent to this string, {@code false} otherwise
+     *
+     * @see  #equalsIgnoreCase(FastString)
+     */
+    @Override
+    public boolean equals(Object anObject) {
+        if (this == anObject) {
+            return true;
+        }
+        if (anObject instanceof FastString) {
+            FastString aString = (FastString)anObject;
+            if (coder() == aString.coder()) {
+                return Arrays.equals(value, aString.value);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code for this string. The hash code for a
+     * {@code FastString} object is computed as
+     * <blockquote><pre>
+     * s[0]*31^(n-1) + s[1]*31^(n-2) + ... + s[n-1]
+     * </pre></blockquote>
+     * using {@code int} arithmetic, where {@code s[i]} is the
+     * <i>i</i>th character of the string, {@code n} is the length of
+     * the string, and {@code ^} indicates exponentiation.
+     * (The hash value of the empty string is zero.) It is the same as
+     * {@link String#hashCode()} of the same characters.
+     *
+     * @return  a hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && value.length > 0) {
+            hash = h = isLatin1() ? FastStringLatin1.hashCode(value)
+                                  : FastStringUTF16.hashCode(value);
+        }
+        return h;
+    }
+
+    /**
+     * Returns a hash code for this string which is consistent with
+     * {@link #equalsIgnoreCase(FastString)}: strings which are equal
+     * ignoring case have the same case insensitive hash code, whatever
+     * their coders are. It is computed as {@link #hashCode()}, with every
+     * character {@code c} replaced by
+     * {@code Character.toLowerCase(Character.toUpperCase(c))}.
+     *
+     * @return  a case insensitive hash code value for this object.
+     */
+    public int hashCodeIgnoreCase() {
+        int h = hashIgnoreCase;
+        if (h == 0 && value.length > 0) {
+            hashIgnoreCase = h = isLatin1() ? FastStringLatin1.hashCodeCI(value)
+                                            : FastStringUTF16.hashCodeCI(value);
+        }
+        return h;
+    }
+
+    /*
+     * A second case insensitive hash, which is consistent with
+     * equalsIgnoreCase too, for FastStringKeywords: FNV-1a over the case
+     * keys of the chars, started from the seed. Strings which collide on
+     * hashCodeIgnoreCase are told apart by another seed. Not cached.
+     */
+    int hashCodeIgnoreCase(int seed) {
+        return isLatin1() ? FastStringLatin1.hashCodeCI(value, seed)
+                          : FastStringUTF16.hashCodeCI(value, seed);
+    }
+
 	/**
 	 * Compares this {@code String} to another {@code String}, ignoring case
 	 * considerations. Two strings are considered equal ignoring case if they
@@ -209,10 +444,22 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
 	public boolean equalsIgnoreCase(FastString anotherString) {
 		return (this == anotherString) ? true
 				: (anotherString != null) 
-				&& (anotherString.value.length == value.length) 
-				&& fullMatches(anotherString, length());
+				&& (anotherString.length() == length()) 
+				&& ((folded != null && anotherString.folded != null)
+						? Arrays.equals(folded, anotherString.folded)
+						: mayEqualIgnoreCase(anotherString) && fullMatches(anotherString, length()));
 	}
 
+    /*
+     * Rejects strings whose case insensitive hash codes are both cached
+     * and differ, without looking at the values.
+     */
+    private boolean mayEqualIgnoreCase(FastString other) {
+        int h1 = hashIgnoreCase;
+        int h2 = other.hashIgnoreCase;
+        return h1 == 0 || h2 == 0 || h1 == h2;
+    }
+
 	/**
 	 * Tests if two string regions are equal.
 	 * <p>
@@ -302,11 +549,113 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
 		return true;
 	}
 */
-	@Override
-	public char charAt(int arg0) {
-		// TODO Auto-generated method stub
-		return 0;
-	}
+    /**
+     * Returns the {@code char} value at the
+     * specified index. An index ranges from {@code 0} to
+     * {@code length() - 1}. The first {@code char} value of the sequence
+     * is at index {@code 0}, the next at index {@code 1},
+     * and so on, as for array indexing.
+     *
+     * @param      index   the index of the {@code char} value.
+     * @return     the {@code char} value at the specified index of this string.
+     *             The first {@code char} value is at index {@code 0}.
+     * @exception  IndexOutOfBoundsException  if the {@code index}
+     *             argument is negative or not less than the length of this
+     *             string.
+     */
+    @Override
+    public char charAt(int index) {
+        if (isLatin1()) {
+            return FastStringLatin1.charAt(value, index);
+        } else {
+            return FastStringUTF16.charAt(value, index);
+        }
+    }
+
+    /**
+     * Copies characters from this string into the destination character
+     * array.
+     * <p>
+     * The first character to be copied is at index {@code srcBegin};
+     * the last character to be copied is at index {@code srcEnd-1}
+     * (thus the total number of characters to be copied is
+     * {@code srcEnd-srcBegin}). The characters are copied into the
+     * subarray of {@code dst} starting at index {@code dstBegin}
+     * and ending at index:
+     * <blockquote><pre>
+     *     dstBegin + (srcEnd-srcBegin) - 1
+     * </pre></blockquote>
+     *
+     * @param      srcBegin   index of the first character in the string
+     *                        to copy.
+     * @param      srcEnd     index after the last character in the string
+     *                        to copy.
+     * @param      dst        the destination array.
+     * @param      dstBegin   the start offset in the destination array.
+     * @exception IndexOutOfBoundsException If any of the following
+     *            is true:
+     *            <ul><li>{@code srcBegin} is negative.
+     *            <li>{@code srcBegin} is greater than {@code srcEnd}
+     *            <li>{@code srcEnd} is greater than the length of this
+     *                string
+     *            <li>{@code dstBegin} is negative
+     *            <li>{@code dstBegin+(srcEnd-srcBegin)} is larger than
+     *                {@code dst.length}</ul>
+     */
+    public void getChars(int srcBegin, int srcEnd, char dst[], int dstBegin) {
+        checkBoundsBeginEnd(srcBegin, srcEnd, length());
+        checkBoundsOffCount(dstBegin, srcEnd - srcBegin, dst.length);
+        if (isLatin1()) {
+            FastStringLatin1.getChars(value, srcBegin, srcEnd, dst, dstBegin);
+        } else {
+            FastStringUTF16.getChars(value, srcBegin, srcEnd, dst, dstBegin);
+        }
+    }
+
+    /**
+     * Returns a stream of {@code int} zero-extending the {@code char} values
+     * from this sequence. The stream reads the value array directly, it
+     * does not call {@link #charAt(int)} for every element.
+     *
+     * @return an IntStream of char values from this sequence
+     */
+    @Override
+    public IntStream chars() {
+        return StreamSupport.intStream(
+            isLatin1() ? new FastStringLatin1.CharsSpliterator(value, Spliterator.IMMUTABLE)
+                       : new FastStringUTF16.CharsSpliterator(value, Spliterator.IMMUTABLE),
+            false);
+    }
+
+    /**
+     * Returns a stream of code point values from this sequence. Any
+     * surrogate pairs encountered in the sequence are combined as if by
+     * {@linkplain Character#toCodePoint Character.toCodePoint} and the
+     * result is passed to the stream. Any other code units, including
+     * ordinary BMP characters, unpaired surrogates, and undefined code
+     * units, are zero-extended to {@code int} values which are then
+     * passed to the stream.
+     *
+     * @return an IntStream of Unicode code points from this sequence
+     */
+    @Override
+    public IntStream codePoints() {
+        return StreamSupport.intStream(
+            isLatin1() ? new FastStringLatin1.CharsSpliterator(value, Spliterator.IMMUTABLE)
+                       : new FastStringUTF16.CodePointsSpliterator(value, Spliterator.IMMUTABLE),
+            false);
+    }
+
+    /**
+     * Returns a {@code String} with the characters of this string.
+     *
+     * @return  a {@code String} with the same characters.
+     */
+    @Override
+    public String toString() {
+        return isLatin1() ? new String(value, StandardCharsets.ISO_8859_1)
+                          : new String(FastStringUTF16.toChars(value));
+    }
 
     /**
      * Tests if two string regions are equal.
@@ -344,16 +693,23 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
      *          {@code false} otherwise.
      */
     public boolean regionMatches(int toffset, FastString other, int ooffset, int len) {
-        byte tv[] = value;
-        byte ov[] = other.value;
         // Note: toffset, ooffset, or len might be near -1>>>1.
         if ((ooffset < 0) || (toffset < 0) ||
              (toffset > (long)length() - len) ||
              (ooffset > (long)other.length() - len)) {
             return false;
         }
-        if (coder() == other.coder()) {
-            if (!isLatin1() && (len > 0)) {
+        return regionMatches(value, coder(), toffset, other.value, other.coder(), ooffset, len);
+    }
+
+    /*
+     * Region matching on values of any coders, shared with FastStringView.
+     * The offsets and the length are in chars and must be within bounds.
+     */
+    static boolean regionMatches(byte[] tv, byte tcoder, int toffset,
+                                 byte[] ov, byte ocoder, int ooffset, int len) {
+        if (tcoder == ocoder) {
+            if (tcoder != LATIN1 && (len > 0)) {
                 toffset = toffset << 1;
                 ooffset = ooffset << 1;
                 len = len << 1;
@@ -364,7 +720,7 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
                 }
             }
         } else {
-            if (coder() == LATIN1) {
+            if (tcoder == LATIN1) {
                 while (len-- > 0) {
                     if (FastStringLatin1.getChar(tv, toffset++) !=
                         FastStringUTF16.getChar(ov, ooffset++)) {
@@ -444,14 +800,76 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
                 || (ooffset > (long)other.length() - len)) {
             return false;
         }
-        byte tv[] = value;
-        byte ov[] = other.value;
-        if (coder() == other.coder()) {
-            return isLatin1()
+        return regionMatchesCI(value, coder(), toffset, other.value, other.coder(), ooffset, len);
+    }
+
+    /**
+     * Returns the index within this string of the first occurrence of the
+     * specified substring ignoring case, starting at the specified index.
+     * The result is the smallest {@code k >= fromIndex} for which
+     * {@code this.regionMatches(true, k, str, 0, str.length())} holds, or
+     * {@code -1} if there is no such {@code k}.
+     *
+     * <p>Short ranges are scanned position by position, longer ones are
+     * searched with the skip tables of a {@link FastStringNeedle}, which
+     * are built by every call; a needle which is searched for repeatedly
+     * should be compiled once with {@link FastStringNeedle#compile(FastString)}.
+     *
+     * @param   str         the substring to search for.
+     * @param   fromIndex   the index from which to start the search.
+     * @return  the index of the first occurrence of the specified substring
+     *          ignoring case, starting at the specified index, or
+     *          {@code -1} if there is no such occurrence.
+     */
+    public int indexOfIgnoreCase(FastString str, int fromIndex) {
+        int m = str.length();
+        int limit = length() - m;
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        }
+        if (m == 0 || limit - fromIndex >= FastStringNeedle.SCAN_LIMIT) {
+            return FastStringNeedle.compile(str).indexIn(this, fromIndex);
+        }
+        char first = FastStringUTF16.foldCase(str.charAt(0));
+        for (int k = fromIndex; k <= limit; k++) {
+            if (FastStringUTF16.foldCase(charAt(k)) == first
+                    && regionMatchesCI(value, coder(), k + 1, str.value, str.coder(), 1, m - 1)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if and only if this string contains the specified
+     * string ignoring case.
+     *
+     * @param  s the string to search for
+     * @return {@code true} if this string contains {@code s} ignoring
+     *         case, {@code false} otherwise
+     */
+    public boolean containsIgnoreCase(FastString s) {
+        return indexOfIgnoreCase(s, 0) >= 0;
+    }
+
+    /*
+     * Case insensitive region matching on values of any coders, shared
+     * with FastStringView. The offsets and the length are in chars and
+     * must be within bounds.
+     */
+    static boolean regionMatchesCI(byte[] tv, byte tcoder, int toffset,
+                                   byte[] ov, byte ocoder, int ooffset, int len) {
+        if (tcoder == ocoder) {
+            if (len >= FastStringVector.THRESHOLD) {
+                return (tcoder == LATIN1)
+                  ? FastStringVector.KERNELS.regionMatchesCILatin1(tv, toffset, ov, ooffset, len)
+                  : FastStringVector.KERNELS.regionMatchesCIUTF16(tv, toffset, ov, ooffset, len);
+            }
+            return (tcoder == LATIN1)
               ? FastStringLatin1.regionMatchesCI(tv, toffset, ov, ooffset, len)
               : FastStringUTF16.regionMatchesCI(tv, toffset, ov, ooffset, len);
         }
-        return isLatin1()
+        return (tcoder == LATIN1)
               ? FastStringLatin1.regionMatchesCI_UTF16(tv, toffset, ov, ooffset, len)
               : FastStringUTF16.regionMatchesCI_Latin1(tv, toffset, ov, ooffset, len);
     }
@@ -460,6 +878,11 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
         byte tv[] = value;
         byte ov[] = other.value;
         if (coder() == other.coder()) {
+            if (len >= FastStringVector.THRESHOLD) {
+                return isLatin1()
+                  ? FastStringVector.KERNELS.regionMatchesCILatin1(tv, 0, ov, 0, len)
+                  : FastStringVector.KERNELS.regionMatchesCIUTF16(tv, 0, ov, 0, len);
+            }
             return isLatin1()
               ? FastStringLatin1.fullMatchesCI(tv, ov, len)
               : FastStringUTF16.fullMatchesCI(tv, ov, len);
@@ -474,17 +897,114 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
         return value.length >> coder();
 	}
 
-	@Override
-	public CharSequence subSequence(int arg0, int arg1) {
-		// TODO Auto-generated method stub
-		return null;
-	}
+    /**
+     * Returns a character sequence that is a subsequence of this sequence.
+     * The subsequence is a {@link FastStringView} which shares the value of
+     * this string, no characters are copied. Use
+     * {@link FastStringView#toFastString()} to get a copy.
+     *
+     * @param   beginIndex   the begin index, inclusive.
+     * @param   endIndex     the end index, exclusive.
+     * @return  the specified subsequence.
+     *
+     * @throws  IndexOutOfBoundsException
+     *          if {@code beginIndex} or {@code endIndex} is negative,
+     *          if {@code endIndex} is greater than {@code length()},
+     *          or if {@code beginIndex} is greater than {@code endIndex}
+     */
+    @Override
+    public FastStringView subSequence(int beginIndex, int endIndex) {
+        int length = length();
+        checkBoundsBeginEnd(beginIndex, endIndex, length);
+        return new FastStringView(value, coder(), beginIndex, endIndex - beginIndex);
+    }
 
-	@Override
-	public int compareTo(FastString arg0) {
-		// TODO Auto-generated method stub
-		return 0;
-	}
+    /**
+     * Compares two strings lexicographically.
+     * The comparison is based on the Unicode value of each character in
+     * the strings, the same way as {@link String#compareTo(String)} does:
+     * the result is the difference of the first characters which differ,
+     * or the difference of the lengths if one string is a prefix of the
+     * other.
+     *
+     * @param   anotherString   the {@code FastString} to be compared.
+     * @return  the value {@code 0} if the argument string is equal to
+     *          this string; a value less than {@code 0} if this string
+     *          is lexicographically less than the string argument; and a
+     *          value greater than {@code 0} if this string is
+     *          lexicographically greater than the string argument.
+     */
+    @Override
+    public int compareTo(FastString anotherString) {
+        byte v1[] = value;
+        byte v2[] = anotherString.value;
+        if (coder() == anotherString.coder()) {
+            return isLatin1() ? FastStringLatin1.compareTo(v1, v2)
+                              : FastStringUTF16.compareTo(v1, v2);
+        }
+        return isLatin1() ? FastStringLatin1.compareToUTF16(v1, v2)
+                          : FastStringUTF16.compareToLatin1(v1, v2);
+    }
+
+    /**
+     * A Comparator that orders {@code FastString} objects as by
+     * {@code compareToIgnoreCase}. This comparator is serializable.
+     * <p>
+     * Note that this Comparator does <em>not</em> take locale into account,
+     * and will result in an unsatisfactory ordering for certain locales.
+     * The {@link java.text.Collator} class provides locale-sensitive comparison.
+     *
+     * @see     java.text.Collator
+     */
+    public static final Comparator<FastString> CASE_INSENSITIVE_ORDER
+                                         = new CaseInsensitiveComparator();
+
+    private static class CaseInsensitiveComparator
+            implements Comparator<FastString>, java.io.Serializable {
+        // use serialVersionUID from JDK 1.2.2 for interoperability
+        private static final long serialVersionUID = 8575799808933029326L;
+
+        public int compare(FastString s1, FastString s2) {
+            return s1.compareToIgnoreCase(s2);
+        }
+
+        /** Replaces the de-serialized object. */
+        private Object readResolve() { return CASE_INSENSITIVE_ORDER; }
+    }
+
+    /**
+     * Compares two strings lexicographically, ignoring case
+     * differences. This method returns an integer whose sign is that of
+     * calling {@code compareTo} with normalized versions of the strings
+     * where case differences have been eliminated by calling
+     * {@code Character.toLowerCase(Character.toUpperCase(character))} on
+     * each character. The order is the same as the one of
+     * {@link String#CASE_INSENSITIVE_ORDER}.
+     * <p>
+     * Note that this method does <em>not</em> take locale into account,
+     * and will result in an unsatisfactory ordering for certain locales.
+     * The {@link java.text.Collator} class provides locale-sensitive comparison.
+     *
+     * @param   str   the {@code FastString} to be compared.
+     * @return  a negative integer, zero, or a positive integer as the
+     *          specified String is greater than, equal to, or less
+     *          than this String, ignoring case considerations.
+     * @see     java.text.Collator
+     */
+    public int compareToIgnoreCase(FastString str) {
+        byte v1[] = value;
+        byte v2[] = str.value;
+        if (coder() == str.coder()) {
+            return isLatin1() ? FastStringLatin1.compareToCI(v1, v2)
+                              : FastStringUTF16.compareToCI(v1, v2);
+        }
+        return isLatin1() ? FastStringLatin1.compareToCI_UTF16(v1, v2)
+                          : FastStringUTF16.compareToCI_Latin1(v1, v2);
+    }
+
+    byte[] value() {
+        return value;
+    }
 
     public char[] toCharArray() {
         return isLatin1() ? FastStringLatin1.toChars(value)
@@ -505,4 +1025,30 @@ public final class FastString implements java.io.Serializable, Comparable<FastSt
                 "offset " + offset + ", count " + count + ", length " + length);
         }
     }
+
+    /*
+     * StringIndexOutOfBoundsException  if {@code index} is
+     * negative or greater than or equal to {@code length}.
+     */
+    static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException("index " + index +
+                                                      ",length " + length);
+        }
+    }
+
+    /*
+     * Check {@code begin}, {@code end} against {@code 0} and {@code length}
+     * bounds.
+     *
+     * @throws  StringIndexOutOfBoundsException
+     *          If {@code begin} is negative, {@code begin} is greater than
+     *          {@code end}, or {@code end} is greater than {@code length}.
+     */
+    static void checkBoundsBeginEnd(int begin, int end, int length) {
+        if (begin < 0 || begin > end || end > length) {
+            throw new StringIndexOutOfBoundsException(
+                "begin " + begin + ", end " + end + ", length " + length);
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static su.tweak.openjdk.FastString.LATIN1;
+import static su.tweak.openjdk.FastString.checkIndex;
+
+import java.util.Arrays;
+
+/**
+ * Append-only store of many strings packed into one byte array, for large
+ * dictionaries where the headers of a FastString and of its value array
+ * outweigh the chars.
+ *
+ * A string is addressed by its index. The value of every string is copied
+ * to the end of the shared array, UTF16 values at an even offset, and its
+ * offset, length and coder are kept in parallel arrays: an entry costs its
+ * chars and 9 bytes. The strings are compared and hashed in place with the
+ * FastString kernels; {@link #view(int)} returns a flyweight
+ * {@link FastStringView} over the shared array.
+ *
+ * Like ArrayList it is not synchronized.
+ */
+public final class FastStringArena {
+
+	private byte[] bytes;
+
+	/** Used bytes */
+	private int used;
+
+	/** Offset per string, in bytes */
+	private int[] offsets;
+
+	/** Length per string, in chars */
+	private int[] lengths;
+
+	private byte[] coders;
+
+	private int size;
+
+	public FastStringArena() {
+		this(16, 256);
+	}
+
+	/**
+	 * @param strings
+	 *            initial capacity in strings
+	 * @param bytes
+	 *            initial capacity in bytes, the sum of the value lengths
+	 */
+	public FastStringArena(int strings, int bytes) {
+		this.bytes = new byte[bytes];
+		this.offsets = new int[strings];
+		this.lengths = new int[strings];
+		this.coders = new byte[strings];
+	}
+
+	/**
+	 * Appends a copy of the string.
+	 *
+	 * @return index of the string
+	 */
+	public int add(FastString s) {
+		byte[] value = s.value();
+		byte coder = s.coder();
+		int offset = (coder == LATIN1) ? used : (used + 1) & ~1;
+		if (offset + value.length > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(offset + value.length, bytes.length * 2));
+		}
+		if (size == offsets.length) {
+			int capacity = Math.max(size * 2, 16);
+			offsets = Arrays.copyOf(offsets, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			coders = Arrays.copyOf(coders, capacity);
+		}
+		System.arraycopy(value, 0, bytes, offset, value.length);
+		used = offset + value.length;
+		offsets[size] = offset;
+		lengths[size] = value.length >> coder;
+		coders[size] = coder;
+		return size++;
+	}
+
+	/**
+	 * @return number of strings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return length of the string i
+	 */
+	public int length(int i) {
+		checkIndex(i, size);
+		return lengths[i];
+	}
+
+	/**
+	 * Compares the string i to a string ignoring case, as
+	 * {@link FastString#equalsIgnoreCase(FastString)} does.
+	 */
+	public boolean equalsIgnoreCase(int i, FastString s) {
+		checkIndex(i, size);
+		byte coder = coders[i];
+		return (s != null) && (s.length() == lengths[i]) && FastString.regionMatchesCI(bytes, coder,
+				offsets[i] >> coder, s.value(), s.coder(), 0, lengths[i]);
+	}
+
+	/**
+	 * @return the case insensitive hash code of the string i, equal to
+	 *         {@link FastString#hashCodeIgnoreCase()} of the string
+	 */
+	public int hashIgnoreCase(int i) {
+		checkIndex(i, size);
+		return (coders[i] == LATIN1) ? FastStringLatin1.hashCodeCI(bytes, offsets[i], lengths[i])
+				: FastStringUTF16.hashCodeCI(bytes, offsets[i] >> 1, lengths[i]);
+	}
+
+	/**
+	 * @return a view of the string i, which shares the array of the arena
+	 *         until the arena grows
+	 */
+	public FastStringView view(int i) {
+		checkIndex(i, size);
+		byte coder = coders[i];
+		return new FastStringView(bytes, coder, offsets[i] >> coder, lengths[i]);
+	}
+
+	/**
+	 * @return a copy of the string i
+	 */
+	public FastString get(int i) {
+		return view(i).toFastString();
+	}
+
+	/**
+	 * Shrinks the arrays to the used size.
+	 */
+	public void trimToSize() {
+		bytes = Arrays.copyOf(bytes, used);
+		offsets = Arrays.copyOf(offsets, size);
+		lengths = Arrays.copyOf(lengths, size);
+		coders = Arrays.copyOf(coders, size);
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.lang.ref.Reference;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A dictionary of short keywords as a FastStringArena, a FastString[] and
+ * a String[]: a scan for a keyword ignoring case and a scan of the case
+ * insensitive hashes.
+ *
+ * main also prints the retained heap of each dictionary for a million
+ * keywords, measured as the used heap after full GCs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FastStringArenaBenchmark {
+
+	private static final int FOOTPRINT_SIZE = 1_000_000;
+
+	@Param({ "10000", "1000000" })
+	public int size;
+
+	private FastStringArena arena;
+	private FastString[] fastStrings;
+	private String[] strings;
+
+	/** The last keyword, in upper case */
+	private FastString fastKey;
+	private String key;
+
+	/*
+	 * Keywords of 4..11 chars, a tenth of them Cyrillic
+	 */
+	static String keyword(Random random) {
+		int length = 4 + random.nextInt(8);
+		char base = (random.nextInt(10) == 0) ? 'а' : 'a';
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append((char) (base + random.nextInt(26)));
+		}
+		return sb.toString();
+	}
+
+	@Setup
+	public void setup() {
+		Random random = new Random(25);
+		arena = new FastStringArena();
+		fastStrings = new FastString[size];
+		strings = new String[size];
+		for (int i = 0; i < size; i++) {
+			String s = keyword(random);
+			strings[i] = s;
+			fastStrings[i] = new FastString(s.toCharArray());
+			arena.add(fastStrings[i]);
+		}
+		arena.trimToSize();
+		key = strings[size - 1].toUpperCase();
+		fastKey = new FastString(key.toCharArray());
+	}
+
+	@Benchmark
+	public int arenaScan() {
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (arena.equalsIgnoreCase(i, fastKey)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int fastStringScan() {
+		int count = 0;
+		for (FastString s : fastStrings) {
+			if (s.equalsIgnoreCase(fastKey)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int stringScan() {
+		int count = 0;
+		for (String s : strings) {
+			if (s.equalsIgnoreCase(key)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int arenaHash() {
+		int h = 0;
+		for (int i = 0; i < size; i++) {
+			h += arena.hashIgnoreCase(i);
+		}
+		return h;
+	}
+
+	/*
+	 * FastString caches the hash, so the uncached hash of the value is
+	 * what the arena is compared to
+	 */
+	@Benchmark
+	public int fastStringHash() {
+		int h = 0;
+		for (FastString s : fastStrings) {
+			h += (s.coder() == FastString.LATIN1) ? FastStringLatin1.hashCodeCI(s.value())
+					: FastStringUTF16.hashCodeCI(s.value());
+		}
+		return h;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void footprint(String name, IntFunction<Object> build) {
+		long before = usedHeap();
+		Object dictionary = build.apply(FOOTPRINT_SIZE);
+		long after = usedHeap();
+		System.out.printf("%-14s %8.1f bytes/keyword%n", name, (after - before) / (double) FOOTPRINT_SIZE);
+		// the dictionary must not be collected before the second measurement
+		Reference.reachabilityFence(dictionary);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringArenaBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+
+		footprint("FastStringArena", n -> {
+			Random random = new Random(25);
+			FastStringArena arena = new FastStringArena();
+			for (int i = 0; i < n; i++) {
+				arena.add(new FastString(keyword(random).toCharArray()));
+			}
+			arena.trimToSize();
+			return arena;
+		});
+		footprint("FastString[]", n -> {
+			Random random = new Random(25);
+			FastString[] a = new FastString[n];
+			for (int i = 0; i < n; i++) {
+				a[i] = new FastString(keyword(random).toCharArray());
+			}
+			return a;
+		});
+		footprint("String[]", n -> {
+			Random random = new Random(25);
+			String[] a = new String[n];
+			for (int i = 0; i < n; i++) {
+				a[i] = keyword(random);
+			}
+			return a;
+		});
+	}
+
+}
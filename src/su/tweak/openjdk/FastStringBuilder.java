@@ -0,0 +1,236 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static su.tweak.openjdk.FastString.LATIN1;
+import static su.tweak.openjdk.FastString.UTF16;
+import static su.tweak.openjdk.FastString.checkBoundsBeginEnd;
+import static su.tweak.openjdk.FastString.checkIndex;
+
+import java.util.Arrays;
+
+/**
+ * Mutable sequence of chars which builds a {@link FastString} directly,
+ * instead of a StringBuilder, its String and the chars of the String.
+ *
+ * The chars are appended to a Latin1 buffer until the first char which is
+ * not Latin1, then the buffer is inflated to UTF16 once, so the result is
+ * coded as {@link FastString#FastString(char[])} would code it.
+ * {@link #toFastString()} hands the buffer over to the string when it is
+ * full, which is the case when the capacity was the final length;
+ * otherwise the value is copied at its length. A buffer which was handed
+ * over is copied by the next modification.
+ *
+ * Like StringBuilder it is not synchronized.
+ */
+public final class FastStringBuilder implements CharSequence, Appendable {
+
+	private byte[] value;
+
+	private byte coder = LATIN1;
+
+	/** Number of chars */
+	private int count;
+
+	/** The value is shared with a string */
+	private boolean shared;
+
+	public FastStringBuilder() {
+		this(16);
+	}
+
+	/**
+	 * @param capacity
+	 *            initial capacity in chars, a builder which ends at exactly
+	 *            this length in Latin1 builds its string without a copy
+	 */
+	public FastStringBuilder(int capacity) {
+		value = new byte[capacity];
+	}
+
+	@Override
+	public int length() {
+		return count;
+	}
+
+	/**
+	 * @return current capacity in chars
+	 */
+	public int capacity() {
+		return value.length >> coder;
+	}
+
+	@Override
+	public char charAt(int index) {
+		checkIndex(index, count);
+		return (coder == LATIN1) ? (char) (value[index] & 0xff) : FastStringUTF16.getChar(value, index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		checkBoundsBeginEnd(start, end, count);
+		return (coder == LATIN1) ? FastStringLatin1.newString(value, start, end - start)
+				: FastStringUTF16.newString(value, start, end - start);
+	}
+
+	/**
+	 * Sets the length, a longer length is padded with '\u0000'.
+	 */
+	public FastStringBuilder setLength(int length) {
+		if (length < 0) {
+			throw new StringIndexOutOfBoundsException(length);
+		}
+		ensureCapacity(length);
+		if (length > count) {
+			Arrays.fill(value, count << coder, length << coder, (byte) 0);
+		}
+		count = length;
+		return this;
+	}
+
+	@Override
+	public FastStringBuilder append(char c) {
+		if (coder == LATIN1 && c > 0xFF) {
+			inflate(count + 1);
+		} else {
+			ensureCapacity(count + 1);
+		}
+		if (coder == LATIN1) {
+			value[count++] = (byte) c;
+		} else {
+			FastStringUTF16.putChar(value, count++, c);
+		}
+		return this;
+	}
+
+	@Override
+	public FastStringBuilder append(CharSequence s) {
+		if (s == null) {
+			return append("null");
+		}
+		if (s instanceof FastString) {
+			return append((FastString) s);
+		}
+		return append(s, 0, s.length());
+	}
+
+	@Override
+	public FastStringBuilder append(CharSequence s, int start, int end) {
+		if (s == null) {
+			s = "null";
+		}
+		checkBoundsBeginEnd(start, end, s.length());
+		ensureCapacity(count + end - start);
+		int i = start;
+		if (coder == LATIN1) {
+			byte[] v = value;
+			int n = count;
+			for (; i < end; i++) {
+				char c = s.charAt(i);
+				if (c > 0xFF) {
+					break;
+				}
+				v[n++] = (byte) c;
+			}
+			count = n;
+			if (i == end) {
+				return this;
+			}
+			inflate(count + end - i);
+		}
+		for (; i < end; i++) {
+			FastStringUTF16.putChar(value, count++, s.charAt(i));
+		}
+		return this;
+	}
+
+	public FastStringBuilder append(FastString s) {
+		if (s == null) {
+			return append("null");
+		}
+		int len = s.length();
+		byte sc = s.coder();
+		if (coder == LATIN1 && sc == UTF16) {
+			inflate(count + len);
+		} else {
+			ensureCapacity(count + len);
+		}
+		if (coder == sc) {
+			System.arraycopy(s.value(), 0, value, count << coder, len << coder);
+		} else {
+			FastStringLatin1.inflate(s.value(), 0, value, count, len);
+		}
+		count += len;
+		return this;
+	}
+
+	public FastStringBuilder append(int i) {
+		return append(Integer.toString(i));
+	}
+
+	public FastStringBuilder append(long l) {
+		return append(Long.toString(l));
+	}
+
+	/**
+	 * @return the string of the chars, which shares the buffer if it is
+	 *         full and its coder is that of the chars
+	 */
+	public FastString toFastString() {
+		if (coder == UTF16) {
+			// the chars which were not Latin1 may have been cut off
+			byte[] latin1 = FastStringUTF16.compress(value, 0, count);
+			if (latin1 != null) {
+				return new FastString(latin1, LATIN1);
+			}
+		}
+		if (count << coder == value.length) {
+			shared = true;
+			return new FastString(value, coder);
+		}
+		return new FastString(Arrays.copyOf(value, count << coder), coder);
+	}
+
+	@Override
+	public String toString() {
+		return toFastString().toString();
+	}
+
+	/*
+	 * Makes room for the chars and unshares the value.
+	 */
+	private void ensureCapacity(int chars) {
+		if (chars << coder > value.length || shared) {
+			int capacity = Math.max(chars, (chars << coder > value.length) ? capacity() * 2 + 2 : capacity());
+			value = Arrays.copyOf(value, capacity << coder);
+			shared = false;
+		}
+	}
+
+	/*
+	 * Switches to UTF16 with room for the chars.
+	 */
+	private void inflate(int chars) {
+		byte[] v = FastStringUTF16.newBytesFor(Math.max(chars, capacity()));
+		FastStringLatin1.inflate(value, 0, v, 0, count);
+		value = v;
+		coder = UTF16;
+		shared = false;
+	}
+
+}
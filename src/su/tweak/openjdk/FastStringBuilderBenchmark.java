@@ -0,0 +1,101 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Assembly of a response header line: FastStringBuilder against
+ * StringBuilder and against the StringBuilder, String, char[] and
+ * FastString path.
+ *
+ * The UTF16 variant has Cyrillic chars in the file name, which is the
+ * third of the five appends: the FastStringBuilder inflates once mid-way
+ * and appends the rest as UTF16.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringBuilderBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean utf16;
+
+	private String name;
+	private String value;
+	private int maxAge;
+
+	private int length;
+
+	@Setup
+	public void setup() {
+		name = "Content-Disposition";
+		value = utf16 ? "attachment; filename=\"отчёт.pdf\"" : "attachment; filename=\"report.pdf\"";
+		maxAge = 3600;
+		length = name.length() + 2 + value.length() + 10 + Integer.toString(maxAge).length() + 2;
+	}
+
+	@Benchmark
+	public String stringBuilder() {
+		return new StringBuilder().append(name).append(": ").append(value).append("; max-age=").append(maxAge)
+				.append("\r\n").toString();
+	}
+
+	@Benchmark
+	public FastString stringBuilderChars() {
+		String s = new StringBuilder().append(name).append(": ").append(value).append("; max-age=").append(maxAge)
+				.append("\r\n").toString();
+		return new FastString(s.toCharArray());
+	}
+
+	@Benchmark
+	public FastString fastBuilder() {
+		return new FastStringBuilder().append(name).append(": ").append(value).append("; max-age=").append(maxAge)
+				.append("\r\n").toFastString();
+	}
+
+	/*
+	 * The exact capacity hands the buffer over without a copy
+	 */
+	@Benchmark
+	public FastString fastBuilderSized() {
+		return new FastStringBuilder(length).append(name).append(": ").append(value).append("; max-age=")
+				.append(maxAge).append("\r\n").toFastString();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringBuilderBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
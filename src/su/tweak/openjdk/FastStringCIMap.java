@@ -0,0 +1,233 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.Arrays;
+
+/**
+ * Case insensitive hash map keyed by {@link FastString}.
+ *
+ * Open addressing with linear probing. The case insensitive hash of every
+ * key ({@link FastString#hashCodeIgnoreCase()}) is kept in a parallel
+ * {@code int[]}, so a probe reads key objects only when the hashes are
+ * equal; keys are then compared with
+ * {@link FastString#equalsIgnoreCase(FastString)}. There are no entry
+ * objects and no boxing.
+ *
+ * Keys must not be {@code null}. The map is not thread safe.
+ *
+ * @param <V>
+ *            the type of mapped values
+ */
+public final class FastStringCIMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	/** Hash of the keys, 0 marks a free slot */
+	private int[] hashes;
+
+	private FastString[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	/** The table is resized when size reaches threshold */
+	private int threshold;
+
+	public FastStringCIMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize
+	 *            the number of keys which fit without resizing
+	 */
+	public FastStringCIMap(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+		}
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the value to which the key is mapped ignoring case, or
+	 *         {@code null} if there is no such mapping
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(FastString key) {
+		int i = indexOf(key);
+		return (i < 0) ? null : (V) values[i];
+	}
+
+	public boolean containsKey(FastString key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * Maps the key to the value. If the map has a key which is equal to it
+	 * ignoring case, the value is replaced and the original key is kept.
+	 *
+	 * @return the previous value or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(FastString key, V value) {
+		int h = hash(key);
+		int[] hs = hashes;
+		int mask = hs.length - 1;
+		int i = spread(h) & mask;
+		for (int hi; (hi = hs[i]) != 0; i = (i + 1) & mask) {
+			if (hi == h && keys[i].equalsIgnoreCase(key)) {
+				V old = (V) values[i];
+				values[i] = value;
+				return old;
+			}
+		}
+		hs[i] = h;
+		keys[i] = key;
+		values[i] = value;
+		if (++size >= threshold) {
+			resize();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the mapping of the key ignoring case.
+	 *
+	 * @return the removed value or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(FastString key) {
+		int i = indexOf(key);
+		if (i < 0) {
+			return null;
+		}
+		V old = (V) values[i];
+		delete(i);
+		size--;
+		return old;
+	}
+
+	public void clear() {
+		Arrays.fill(hashes, 0);
+		Arrays.fill(keys, null);
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private int indexOf(FastString key) {
+		int h = hash(key);
+		int[] hs = hashes;
+		int mask = hs.length - 1;
+		for (int i = spread(h) & mask, hi; (hi = hs[i]) != 0; i = (i + 1) & mask) {
+			if (hi == h && keys[i].equalsIgnoreCase(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Backward shift deletion: the entries after the slot which would not
+	 * be found anymore through a free slot are moved into it.
+	 */
+	private void delete(int i) {
+		int[] hs = hashes;
+		int mask = hs.length - 1;
+		for (int j = (i + 1) & mask, hj; (hj = hs[j]) != 0; j = (j + 1) & mask) {
+			int k = spread(hj) & mask;
+			// the entry stays if its home slot k is cyclically in (i, j]
+			if ((i <= j) ? (i < k && k <= j) : (i < k || k <= j)) {
+				continue;
+			}
+			hs[i] = hj;
+			keys[i] = keys[j];
+			values[i] = values[j];
+			i = j;
+		}
+		hs[i] = 0;
+		keys[i] = null;
+		values[i] = null;
+	}
+
+	private void resize() {
+		int[] oldHashes = hashes;
+		FastString[] oldKeys = keys;
+		Object[] oldValues = values;
+		if (oldHashes.length == MAX_CAPACITY) {
+			throw new IllegalStateException("Map is too large: " + size);
+		}
+		allocate(oldHashes.length << 1);
+		int[] hs = hashes;
+		int mask = hs.length - 1;
+		for (int j = 0; j < oldHashes.length; j++) {
+			int h = oldHashes[j];
+			if (h != 0) {
+				int i = spread(h) & mask;
+				while (hs[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				hs[i] = h;
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		hashes = new int[capacity];
+		keys = new FastString[capacity];
+		values = new Object[capacity];
+		threshold = capacity >> 1;
+	}
+
+	/*
+	 * Table size for a load factor of 1/2.
+	 */
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity >> 1 <= expectedSize && capacity < MAX_CAPACITY) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	/*
+	 * Case insensitive hash of the key, never 0.
+	 */
+	private static int hash(FastString key) {
+		int h = key.hashCodeIgnoreCase();
+		return (h == 0) ? 1 : h;
+	}
+
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Case insensitive lookup of header names: FastStringCIMap against TreeMap
+ * with String.CASE_INSENSITIVE_ORDER and HashMap keyed by lower case
+ * strings.
+ *
+ * Every lookup key differs in case from the stored key. The FastString
+ * lookup keys cache their case insensitive hash, the lower case keys for
+ * HashMap are created on every lookup as a caller has to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringCIMapBenchmark {
+
+	static final String[] HEADERS = { "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language",
+			"Accept-Ranges", "Age", "Allow", "Authorization", "Cache-Control", "Connection", "Content-Disposition",
+			"Content-Encoding", "Content-Language", "Content-Length", "Content-Location", "Content-Range",
+			"Content-Type", "Cookie", "Date", "ETag", "Expect", "Expires", "Forwarded", "From", "Host", "If-Match",
+			"If-Modified-Since", "If-None-Match", "If-Range", "If-Unmodified-Since", "Last-Modified", "Link",
+			"Location", "Max-Forwards", "Origin", "Pragma", "Proxy-Authenticate", "Proxy-Authorization", "Range",
+			"Referer", "Retry-After", "Server", "Set-Cookie", "TE", "Trailer", "Transfer-Encoding", "Upgrade",
+			"User-Agent", "Vary", "Via", "Warning", "WWW-Authenticate" };
+
+	@Param({ "16", "52", "512" })
+	public int size;
+
+	private FastStringCIMap<Integer> fastStringCIMap;
+
+	private TreeMap<String, Integer> treeMap;
+
+	private HashMap<String, Integer> hashMap;
+
+	private FastString[] fastKeys;
+
+	private String[] keys;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		fastStringCIMap = new FastStringCIMap<>();
+		treeMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		hashMap = new HashMap<>();
+		fastKeys = new FastString[size];
+		keys = new String[size];
+		for (int i = 0; i < size; i++) {
+			String key = (i < HEADERS.length) ? HEADERS[i] : "X-Custom-Header-" + i;
+			Integer value = Integer.valueOf(i);
+			fastStringCIMap.put(new FastString(key.toCharArray()), value);
+			treeMap.put(key, value);
+			hashMap.put(key.toLowerCase(Locale.ROOT), value);
+
+			keys[i] = key.toUpperCase(Locale.ROOT);
+			fastKeys[i] = new FastString(keys[i].toCharArray());
+		}
+	}
+
+	private int nextIndex() {
+		int i = next;
+		next = (i + 1 == size) ? 0 : i + 1;
+		return i;
+	}
+
+	@Benchmark
+	public Integer fastStringCIMap() {
+		return fastStringCIMap.get(fastKeys[nextIndex()]);
+	}
+
+	@Benchmark
+	public Integer treeMapCaseInsensitive() {
+		return treeMap.get(keys[nextIndex()]);
+	}
+
+	@Benchmark
+	public Integer hashMapLowerCase() {
+		return hashMap.get(keys[nextIndex()].toLowerCase(Locale.ROOT));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringCIMapBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
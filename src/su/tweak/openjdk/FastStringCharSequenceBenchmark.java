@@ -0,0 +1,117 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * FastString as a CharSequence: regex matching of a log line, char
+ * streams and bulk copy, against String.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FastStringCharSequenceBenchmark {
+
+	private static final String LINE = "2016-05-10 12:00:01,123 INFO  [http-nio-8080-exec-7] "
+			+ "su.tweak.openjdk.Server - Request GET /index.html?user=andrey took 15 ms";
+
+	private static final Pattern PATTERN = Pattern.compile("Request (\\w+) (\\S+) took (\\d+) ms");
+
+	private static String string = new String(LINE.toCharArray());
+
+	private static FastString fastString = new FastString(LINE.toCharArray());
+
+	private static char[] chars = new char[LINE.length()];
+
+	/*
+	 * Pattern.matcher(String).find()
+	 * 
+	 */
+	@Benchmark
+	public int patternString() {
+		Matcher m = PATTERN.matcher(string);
+		return m.find() ? m.end(3) : -1;
+	}
+
+	/*
+	 * Pattern.matcher(FastString).find()
+	 * 
+	 */
+	@Benchmark
+	public int patternFast() {
+		Matcher m = PATTERN.matcher(fastString);
+		return m.find() ? m.end(3) : -1;
+	}
+
+	/*
+	 * var.chars().sum()
+	 * 
+	 */
+	@Benchmark
+	public int charsString() {
+		return string.chars().sum();
+	}
+
+	/*
+	 * var.chars().sum()
+	 * 
+	 */
+	@Benchmark
+	public int charsFast() {
+		return fastString.chars().sum();
+	}
+
+	/*
+	 * var.getChars(0, length, dst, 0)
+	 * 
+	 */
+	@Benchmark
+	public char[] getCharsString() {
+		string.getChars(0, LINE.length(), chars, 0);
+		return chars;
+	}
+
+	/*
+	 * var.getChars(0, length, dst, 0)
+	 * 
+	 */
+	@Benchmark
+	public char[] getCharsFast() {
+		fastString.getChars(0, LINE.length(), chars, 0);
+		return chars;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringCharSequenceBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static su.tweak.openjdk.FastString.LATIN1;
+import static su.tweak.openjdk.FastString.UTF16;
+import static su.tweak.openjdk.FastString.checkBoundsOffCount;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decoding of bytes straight into the value of a {@link FastString}, see
+ * {@link FastString#fromUtf8(byte[], int, int)}.
+ *
+ * The decoders take a private copy of the input bytes, which becomes the
+ * value as it is when the input is ASCII. Otherwise the Latin1 chars are decoded in
+ * place, the output never overtakes the input; the first char which is
+ * not Latin1 switches to a UTF16 value, which gets the chars decoded so
+ * far.
+ */
+final class FastStringCoding {
+
+	private static final char REPLACEMENT = '�';
+
+	private FastStringCoding() {
+	}
+
+	/**
+	 * Copies bytes of a buffer, its position, limit and byte order are
+	 * ignored.
+	 */
+	static byte[] copyOf(ByteBuffer buffer, int offset, int length) {
+		checkBoundsOffCount(offset, length, buffer.capacity());
+		byte[] v = new byte[length];
+		if (buffer.hasArray()) {
+			System.arraycopy(buffer.array(), buffer.arrayOffset() + offset, v, 0, length);
+		} else {
+			ByteBuffer b = buffer.duplicate();
+			b.limit(offset + length).position(offset);
+			b.get(v);
+		}
+		return v;
+	}
+
+	/**
+	 * Decodes UTF-8 as {@code new String(bytes, UTF_8)} does: malformed
+	 * input is replaced with U+FFFD per maximal invalid subpart, an encoded
+	 * surrogate with a single U+FFFD.
+	 *
+	 * @param v
+	 *            the UTF-8 bytes, which are overwritten
+	 */
+	static FastString decodeUTF8(byte[] v) {
+		int len = v.length;
+		int sp = FastStringLatin1.indexOfNonAscii(v, 0, len);
+		if (sp == len) {
+			return new FastString(v, LATIN1);
+		}
+		int dp = sp;
+		while (sp < len) {
+			int b1 = v[sp];
+			if (b1 >= 0) {
+				v[dp++] = (byte) b1;
+				sp++;
+			} else if ((b1 & 0xfe) == 0xc2 && sp + 1 < len && isContinuation(v[sp + 1])) {
+				// U+0080..U+00FF
+				v[dp++] = (byte) ((b1 << 6) | (v[sp + 1] & 0x3f));
+				sp += 2;
+			} else {
+				return decodeUTF8_UTF16(v, sp, dp);
+			}
+		}
+		return new FastString((dp == len) ? v : Arrays.copyOf(v, dp), LATIN1);
+	}
+
+	/*
+	 * Continues decoding at sp into a UTF16 value, v[0, dp) are the Latin1
+	 * chars decoded so far.
+	 */
+	private static FastString decodeUTF8_UTF16(byte[] v, int sp, int dp) {
+		int len = v.length;
+		// every remaining byte yields at most one char
+		byte[] dst = FastStringUTF16.newBytesFor(dp + len - sp);
+		for (int i = 0; i < dp; i++) {
+			FastStringUTF16.putChar(dst, i, v[i] & 0xff);
+		}
+		while (sp < len) {
+			int b1 = v[sp] & 0xff;
+			if (b1 < 0x80) {
+				FastStringUTF16.putChar(dst, dp++, b1);
+				sp++;
+			} else if (b1 < 0xc2) {
+				FastStringUTF16.putChar(dst, dp++, REPLACEMENT);
+				sp++;
+			} else if (b1 < 0xe0) {
+				if (sp + 1 < len && isContinuation(v[sp + 1])) {
+					FastStringUTF16.putChar(dst, dp++, ((b1 & 0x1f) << 6) | (v[sp + 1] & 0x3f));
+					sp += 2;
+				} else {
+					FastStringUTF16.putChar(dst, dp++, REPLACEMENT);
+					sp++;
+				}
+			} else if (b1 < 0xf0) {
+				if (sp + 1 >= len || !inRange(v[sp + 1], (b1 == 0xe0) ? 0xa0 : 0x80, 0xbf)) {
+					sp++;
+				} else if (sp + 2 >= len || !isContinuation(v[sp + 2])) {
+					sp += 2;
+				} else {
+					char c = (char) (((b1 & 0x0f) << 12) | ((v[sp + 1] & 0x3f) << 6) | (v[sp + 2] & 0x3f));
+					// an encoded surrogate is replaced as a whole, as String does
+					FastStringUTF16.putChar(dst, dp++, Character.isSurrogate(c) ? REPLACEMENT : c);
+					sp += 3;
+					continue;
+				}
+				FastStringUTF16.putChar(dst, dp++, REPLACEMENT);
+			} else if (b1 < 0xf5) {
+				int lo = (b1 == 0xf0) ? 0x90 : 0x80;
+				int hi = (b1 == 0xf4) ? 0x8f : 0xbf;
+				if (sp + 1 >= len || !inRange(v[sp + 1], lo, hi)) {
+					sp++;
+				} else if (sp + 2 >= len || !isContinuation(v[sp + 2])) {
+					sp += 2;
+				} else if (sp + 3 >= len || !isContinuation(v[sp + 3])) {
+					sp += 3;
+				} else {
+					int cp = ((b1 & 0x07) << 18) | ((v[sp + 1] & 0x3f) << 12) | ((v[sp + 2] & 0x3f) << 6)
+							| (v[sp + 3] & 0x3f);
+					FastStringUTF16.putChar(dst, dp++, Character.highSurrogate(cp));
+					FastStringUTF16.putChar(dst, dp++, Character.lowSurrogate(cp));
+					sp += 4;
+					continue;
+				}
+				FastStringUTF16.putChar(dst, dp++, REPLACEMENT);
+			} else {
+				FastStringUTF16.putChar(dst, dp++, REPLACEMENT);
+				sp++;
+			}
+		}
+		return new FastString((dp << 1 == dst.length) ? dst : Arrays.copyOf(dst, dp << 1), UTF16);
+	}
+
+	private static boolean isContinuation(byte b) {
+		return (b & 0xc0) == 0x80;
+	}
+
+	private static boolean inRange(byte b, int lo, int hi) {
+		int u = b & 0xff;
+		return u >= lo && u <= hi;
+	}
+
+}
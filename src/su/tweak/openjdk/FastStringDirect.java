@@ -0,0 +1,299 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static su.tweak.openjdk.FastString.LATIN1;
+import static su.tweak.openjdk.FastString.UTF16;
+import static su.tweak.openjdk.FastString.checkBoundsBeginEnd;
+import static su.tweak.openjdk.FastString.checkBoundsOffCount;
+import static su.tweak.openjdk.FastString.checkIndex;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * String whose chars live in a {@link ByteBuffer}, usually a direct one:
+ * a region of a network buffer or an off-heap copy of a long-lived key.
+ *
+ * The bytes have the layout of the {@link FastString} value: one byte per
+ * char for LATIN1, two bytes per char in the FastStringUTF16 byte order for
+ * UTF16. Comparisons and hashing read the buffer in place and agree with
+ * FastString, with heap and direct strings alike. The buffer must not be
+ * modified while the string is in use.
+ *
+ * {@code MemorySegment} would be the natural backing store, but it is not
+ * available on the JDK this project targets.
+ */
+public final class FastStringDirect implements CharSequence {
+
+	/** Chars of this string start at index {@code offset << coder} */
+	private final ByteBuffer buffer;
+
+	private final byte coder;
+
+	/** Offset of the first char in {@code buffer}, in chars */
+	private final int offset;
+
+	private final int length;
+
+	/** Cache the hash code for the string */
+	private int hash; // Default to 0
+
+	/** Cache the case insensitive hash code for the string */
+	private int hashIgnoreCase; // Default to 0
+
+	private FastStringDirect(ByteBuffer buffer, byte coder, int offset, int length) {
+		this.buffer = buffer;
+		this.coder = coder;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Wraps Latin1 bytes of a buffer without copying them.
+	 *
+	 * @param buffer
+	 *            the buffer, its position, limit and byte order are ignored
+	 * @param offset
+	 *            absolute index of the first byte
+	 * @param length
+	 *            number of chars
+	 */
+	public static FastStringDirect latin1(ByteBuffer buffer, int offset, int length) {
+		checkBoundsOffCount(offset, length, buffer.capacity());
+		return new FastStringDirect(slice(buffer, offset, length, ByteOrder.nativeOrder()), LATIN1, 0, length);
+	}
+
+	/**
+	 * Wraps UTF16 chars of a buffer, in the byte order of FastString, without
+	 * copying them.
+	 *
+	 * @param buffer
+	 *            the buffer, its position, limit and byte order are ignored
+	 * @param offset
+	 *            absolute index of the first byte
+	 * @param length
+	 *            number of chars
+	 */
+	public static FastStringDirect utf16(ByteBuffer buffer, int offset, int length) {
+		checkBoundsOffCount(offset, length << 1, buffer.capacity());
+		return new FastStringDirect(slice(buffer, offset, length << 1, FastStringUTF16.BYTE_ORDER), UTF16, 0,
+				length);
+	}
+
+	/**
+	 * Copies a string to a new direct buffer, so that its chars are kept
+	 * off the heap.
+	 */
+	public static FastStringDirect copyOf(FastString s) {
+		byte[] value = s.value();
+		byte coder = s.coder();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(value.length);
+		buffer.put(value);
+		buffer.order((coder == LATIN1) ? ByteOrder.nativeOrder() : FastStringUTF16.BYTE_ORDER);
+		return new FastStringDirect(buffer, coder, 0, value.length >> coder);
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int bytes, ByteOrder order) {
+		ByteBuffer b = buffer.duplicate();
+		b.limit(offset + bytes).position(offset);
+		return b.slice().order(order);
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		checkIndex(index, length);
+		return getChar(offset + index);
+	}
+
+	private char getChar(int index) {
+		return (coder == LATIN1) ? FastStringLatin1.getChar(buffer, index) : FastStringUTF16.getChar(buffer, index);
+	}
+
+	/**
+	 * @return a string over the same buffer, nothing is copied
+	 */
+	@Override
+	public FastStringDirect subSequence(int beginIndex, int endIndex) {
+		checkBoundsBeginEnd(beginIndex, endIndex, length);
+		return new FastStringDirect(buffer, coder, offset + beginIndex, endIndex - beginIndex);
+	}
+
+	/**
+	 * @return the same value as {@link FastString#hashCode()} of the same
+	 *         chars
+	 */
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0 && length > 0) {
+			hash = h = (coder == LATIN1) ? FastStringLatin1.hashCode(buffer, offset, length)
+					: FastStringUTF16.hashCode(buffer, offset, length);
+		}
+		return h;
+	}
+
+	/**
+	 * @return the same value as {@link FastString#hashCodeIgnoreCase()} of
+	 *         the same chars
+	 */
+	public int hashCodeIgnoreCase() {
+		int h = hashIgnoreCase;
+		if (h == 0 && length > 0) {
+			hashIgnoreCase = h = (coder == LATIN1) ? FastStringLatin1.hashCodeCI(buffer, offset, length)
+					: FastStringUTF16.hashCodeCI(buffer, offset, length);
+		}
+		return h;
+	}
+
+	/**
+	 * @return true if the argument is a FastStringDirect with the same
+	 *         chars
+	 */
+	@Override
+	public boolean equals(Object anObject) {
+		if (this == anObject) {
+			return true;
+		}
+		if (anObject instanceof FastStringDirect) {
+			FastStringDirect other = (FastStringDirect) anObject;
+			return other.length == length && regionMatches(false, 0, other, 0, length);
+		}
+		return false;
+	}
+
+	/**
+	 * Compares this string to a heap string, see
+	 * {@link FastString#equals(Object)}.
+	 */
+	public boolean contentEquals(FastString anotherString) {
+		return (anotherString != null) && (anotherString.length() == length)
+				&& regionMatches(false, 0, anotherString, 0, length);
+	}
+
+	/**
+	 * Compares this string to a heap string, ignoring case considerations,
+	 * as {@link FastString#equalsIgnoreCase(FastString)} does.
+	 */
+	public boolean equalsIgnoreCase(FastString anotherString) {
+		return (anotherString != null) && (anotherString.length() == length)
+				&& regionMatches(true, 0, anotherString, 0, length);
+	}
+
+	/**
+	 * Compares this string to another direct string, ignoring case
+	 * considerations, as {@link FastString#equalsIgnoreCase(FastString)}
+	 * does.
+	 */
+	public boolean equalsIgnoreCase(FastStringDirect anotherString) {
+		return (this == anotherString) ? true
+				: (anotherString != null) && (anotherString.length == length)
+						&& regionMatches(true, 0, anotherString, 0, length);
+	}
+
+	/**
+	 * Tests if a region of this string and a region of a heap string are
+	 * equal, see {@link FastString#regionMatches(boolean, int, FastString, int, int)}.
+	 */
+	public boolean regionMatches(boolean ignoreCase, int toffset, FastString other, int ooffset, int len) {
+		// Note: toffset, ooffset, or len might be near -1>>>1.
+		if ((ooffset < 0) || (toffset < 0) || (toffset > (long) length - len)
+				|| (ooffset > (long) other.length() - len)) {
+			return false;
+		}
+		byte[] ov = other.value();
+		byte ocoder = other.coder();
+		int t = offset + toffset;
+		if (coder == ocoder) {
+			if (coder == LATIN1) {
+				return ignoreCase ? FastStringLatin1.regionMatchesCI(buffer, t, ov, ooffset, len)
+						: FastStringLatin1.regionEquals(buffer, t, ov, ooffset, len);
+			}
+			return ignoreCase ? FastStringUTF16.regionMatchesCI(buffer, t, ov, ooffset, len)
+					: FastStringUTF16.regionEquals(buffer, t, ov, ooffset, len);
+		}
+		for (int i = 0; i < len; i++) {
+			char c1 = getChar(t + i);
+			char c2 = (ocoder == LATIN1) ? FastStringLatin1.getChar(ov, ooffset + i)
+					: FastStringUTF16.getChar(ov, ooffset + i);
+			if (c1 != c2 && !(ignoreCase && FastStringUTF16.equalsCI(c1, c2))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tests if a region of this string and a region of another direct
+	 * string are equal, see
+	 * {@link FastString#regionMatches(boolean, int, FastString, int, int)}.
+	 */
+	public boolean regionMatches(boolean ignoreCase, int toffset, FastStringDirect other, int ooffset, int len) {
+		// Note: toffset, ooffset, or len might be near -1>>>1.
+		if ((ooffset < 0) || (toffset < 0) || (toffset > (long) length - len)
+				|| (ooffset > (long) other.length - len)) {
+			return false;
+		}
+		int t = offset + toffset;
+		int o = other.offset + ooffset;
+		if (coder == other.coder) {
+			if (coder == LATIN1) {
+				return ignoreCase ? FastStringLatin1.regionMatchesCI(buffer, t, other.buffer, o, len)
+						: FastStringLatin1.regionEquals(buffer, t, other.buffer, o, len);
+			}
+			// both buffers are in the same byte order, so bytes can be compared
+			return ignoreCase ? FastStringUTF16.regionMatchesCI(buffer, t, other.buffer, o, len)
+					: FastStringLatin1.regionEquals(buffer, t << 1, other.buffer, o << 1, len << 1);
+		}
+		for (int i = 0; i < len; i++) {
+			char c1 = getChar(t + i);
+			char c2 = other.getChar(o + i);
+			if (c1 != c2 && !(ignoreCase && FastStringUTF16.equalsCI(c1, c2))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a new heap string with a copy of the chars
+	 */
+	public FastString toFastString() {
+		int bytes = length << coder;
+		byte[] value = new byte[bytes];
+		ByteBuffer b = buffer.duplicate();
+		b.position(offset << coder);
+		b.get(value, 0, bytes);
+		return (coder == LATIN1) ? new FastString(value, LATIN1) : FastStringUTF16.newString(value, 0, length);
+	}
+
+	@Override
+	public String toString() {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = getChar(offset + i);
+		}
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A Latin1 token in a direct buffer is compared ignoring case with a heap
+ * key: wrapped in place by FastStringDirect against the copies to char[]
+ * and FastString, or to byte[] and String.
+ *
+ * wrap* include the creation of the FastStringDirect, compare* use one
+ * created in the setup. directKey compares with an off-heap copy of the
+ * key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringDirectBenchmark {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789-_.";
+
+	@Param({ "12", "64", "256" })
+	public int length;
+
+	private ByteBuffer buffer;
+
+	private FastStringDirect token;
+
+	private FastString key;
+
+	private FastStringDirect directKey;
+
+	private String stringKey;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(i % ALPHABET.length()));
+		}
+		String string = sb.toString();
+		buffer = ByteBuffer.allocateDirect(length + 16);
+		buffer.position(8);
+		buffer.put(string.toUpperCase().getBytes(StandardCharsets.ISO_8859_1));
+		buffer.clear();
+
+		token = FastStringDirect.latin1(buffer, 8, length);
+		key = new FastString(string.toCharArray());
+		directKey = FastStringDirect.copyOf(key);
+		stringKey = string;
+	}
+
+	@Benchmark
+	public boolean wrapDirect() {
+		return FastStringDirect.latin1(buffer, 8, length).equalsIgnoreCase(key);
+	}
+
+	@Benchmark
+	public boolean compareDirect() {
+		return token.equalsIgnoreCase(key);
+	}
+
+	@Benchmark
+	public boolean directKey() {
+		return token.equalsIgnoreCase(directKey);
+	}
+
+	@Benchmark
+	public boolean copyFast() {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) (buffer.get(8 + i) & 0xff);
+		}
+		return new FastString(chars).equalsIgnoreCase(key);
+	}
+
+	@Benchmark
+	public boolean copyString() {
+		byte[] bytes = new byte[length];
+		ByteBuffer b = buffer.duplicate();
+		b.position(8);
+		b.get(bytes);
+		return new String(bytes, StandardCharsets.ISO_8859_1).equalsIgnoreCase(stringKey);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringDirectBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * equalsIgnoreCase(...) of folded strings (FastString.folded) against the
+ * plain ones, and the cost of folding.
+ *
+ * The strings are equal and differ in case. fold() is the one-time cost of
+ * a folded key; run with -prof gc, its gc.alloc.rate.norm is the memory
+ * cost: the FastString copy plus the folded array. The fold pays off after
+ * fold / (fast - folded) comparisons.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringFoldedBenchmark {
+
+	private static final String LATIN1_ALPHABET = "abcdefghijklmnopqrstuvwxyzàéîõü0123456789-_";
+
+	private static final String UTF16_ALPHABET = "абвгдеёжзийклмнопрстуфхцчшщъыьэюя0123456789-_";
+
+	@Param({ "6", "32", "256" })
+	public int length;
+
+	@Param({ "LATIN1", "UTF16" })
+	public String coder;
+
+	private FastString _fastString;
+	private FastString fastString;
+
+	private FastString _foldedString;
+	private FastString foldedString;
+
+	@Setup
+	public void setup() {
+		String alphabet = "UTF16".equals(coder) ? UTF16_ALPHABET : LATIN1_ALPHABET;
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(alphabet.charAt(i % alphabet.length()));
+		}
+		String string = sb.toString();
+		fastString = new FastString(string.toCharArray());
+		_fastString = new FastString(string.toUpperCase().toCharArray());
+		foldedString = FastString.folded(fastString);
+		_foldedString = FastString.folded(_fastString);
+	}
+
+	@Benchmark
+	public boolean fast() {
+		return fastString.equalsIgnoreCase(_fastString);
+	}
+
+	@Benchmark
+	public boolean folded() {
+		return foldedString.equalsIgnoreCase(_foldedString);
+	}
+
+	@Benchmark
+	public FastString fold() {
+		return FastString.folded(_fastString);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringFoldedBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Decoding of UTF-8 bytes: FastString.fromUtf8(...) against String and
+ * against a FastString made from the chars of a String.
+ *
+ * ASCII input is a plain copy, LATIN1 input is decoded in place to Latin1
+ * and UTF16 input switches to a UTF16 value at its first char.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringFromBytesBenchmark {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789-_.";
+
+	public enum Charset {
+		ASCII, LATIN1, UTF16
+	}
+
+	@Param({ "16", "256", "4096" })
+	public int length;
+
+	@Param
+	public Charset charset;
+
+	private byte[] bytes;
+
+	private ByteBuffer direct;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			char c = ALPHABET.charAt(i % ALPHABET.length());
+			if (i % 8 == 7 && charset != Charset.ASCII) {
+				c = (charset == Charset.LATIN1) ? 'é' : 'ж';
+			}
+			sb.append(c);
+		}
+		bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+		direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes);
+	}
+
+	@Benchmark
+	public String string() {
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public FastString stringChars() {
+		return new FastString(new String(bytes, StandardCharsets.UTF_8).toCharArray());
+	}
+
+	@Benchmark
+	public FastString fast() {
+		return FastString.fromUtf8(bytes, 0, bytes.length);
+	}
+
+	@Benchmark
+	public FastString fastDirect() {
+		return FastString.fromUtf8(direct, 0, bytes.length);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringFromBytesBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Hash code computation cost by coder and length.
+ *
+ * The kernels are called on the value bytes, because FastString caches its
+ * hash codes after the first call. The cached calls show the cost of a
+ * repeated lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringHashBenchmark {
+
+	private static final String ALPHABET = "AbCdEfGhIjKlMnOpQrStUvWxYz0123456789-_.";
+
+	@Param({ "6", "32", "256" })
+	public int length;
+
+	@Param({ "LATIN1", "UTF16" })
+	public String coder;
+
+	private String string;
+
+	private FastString fastString;
+
+	private byte[] value;
+
+	private boolean latin1;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(i % ALPHABET.length()));
+		}
+		if ("UTF16".equals(coder)) {
+			sb.setCharAt(length - 1, 'Ж');
+		}
+		string = sb.toString();
+		fastString = new FastString(string.toCharArray());
+		latin1 = fastString.coder() == FastString.LATIN1;
+		value = latin1 ? string.getBytes(StandardCharsets.ISO_8859_1)
+				: FastStringUTF16.toBytes(string.toCharArray(), 0, length);
+		fastString.hashCode();
+		fastString.hashCodeIgnoreCase();
+	}
+
+	@Benchmark
+	public int hashCodeFast() {
+		return latin1 ? FastStringLatin1.hashCode(value) : FastStringUTF16.hashCode(value);
+	}
+
+	@Benchmark
+	public int hashCodeIgnoreCaseFast() {
+		return latin1 ? FastStringLatin1.hashCodeCI(value) : FastStringUTF16.hashCodeCI(value);
+	}
+
+	@Benchmark
+	public int hashCodeCachedFast() {
+		return fastString.hashCode();
+	}
+
+	@Benchmark
+	public int hashCodeIgnoreCaseCachedFast() {
+		return fastString.hashCodeIgnoreCase();
+	}
+
+	/*
+	 * Usual way to get a case insensitive hash of a String
+	 */
+	@Benchmark
+	public int hashCodeLowerCaseString() {
+		return string.toLowerCase().hashCode();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringHashBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Case insensitive substring search of a needle at the end of a haystack:
+ * lower casing both Strings and String.indexOf, a regionMatches(true, ...)
+ * scan, FastString.indexOfIgnoreCase and a precompiled FastStringNeedle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringIndexOfIgnoreCaseBenchmark {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789-_. ";
+
+	@Param({ "64", "1024", "16384" })
+	public int length;
+
+	@Param({ "false", "true" })
+	public boolean utf16;
+
+	private String haystack;
+	private String needle;
+
+	private FastString fastHaystack;
+	private FastString fastNeedle;
+
+	private FastStringNeedle compiled;
+
+	@Setup
+	public void setup() {
+		needle = utf16 ? "Charset=Кодировка" : "Charset=Encoding";
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; sb.length() < length - needle.length(); i++) {
+			sb.append(ALPHABET.charAt(i * 7 % ALPHABET.length()));
+		}
+		sb.append(needle.toUpperCase(Locale.ROOT));
+		haystack = sb.toString();
+
+		fastHaystack = new FastString(haystack.toCharArray());
+		fastNeedle = new FastString(needle.toCharArray());
+		compiled = FastStringNeedle.compile(fastNeedle);
+	}
+
+	@Benchmark
+	public int stringLowerCase() {
+		return haystack.toLowerCase(Locale.ROOT).indexOf(needle.toLowerCase(Locale.ROOT));
+	}
+
+	@Benchmark
+	public int stringRegionMatches() {
+		int m = needle.length();
+		for (int k = 0, limit = haystack.length() - m; k <= limit; k++) {
+			if (haystack.regionMatches(true, k, needle, 0, m)) {
+				return k;
+			}
+		}
+		return -1;
+	}
+
+	@Benchmark
+	public int fast() {
+		return fastHaystack.indexOfIgnoreCase(fastNeedle, 0);
+	}
+
+	@Benchmark
+	public int fastCompiled() {
+		return compiled.indexIn(fastHaystack, 0);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringIndexOfIgnoreCaseBenchmark.class.getSimpleName())
+				.forks(1).build();
+
+		new Runner(opt).run();
+	}
+
+}
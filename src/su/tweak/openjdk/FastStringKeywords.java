@@ -0,0 +1,274 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Case insensitive lookup of a fixed vocabulary (header names, SQL
+ * keywords...) through a minimal perfect hash.
+ *
+ * The table is built with the hash and displace method over the case
+ * insensitive hash codes ({@link FastString#hashCodeIgnoreCase()}): a
+ * keyword falls into a bucket, every bucket has a displacement which sends
+ * all its keywords to free slots, and there are as many slots as keywords.
+ * A lookup reads one displacement and one slot and compares the string
+ * with a single keyword.
+ *
+ * The 32 bit hash codes of distinct keywords may be equal (such as the
+ * ones of "aq" and "c3"). Such keywords share a bucket, which then places
+ * its keywords by a second, seeded hash of the case folded chars instead;
+ * the builder draws another seed if two keywords collide on it too. Only
+ * lookups which fall into such a bucket compute the second hash.
+ *
+ * Keywords must be distinct ignoring case, the builder throws
+ * {@link IllegalArgumentException} otherwise.
+ */
+public final class FastStringKeywords {
+
+	/** Upper bound of the displacement search per bucket */
+	private static final int MAX_DISPLACEMENT = 1 << 20;
+
+	/** FNV-1a offset basis, the first seed of the second hash */
+	private static final int FIRST_SEED = 0x811c9dc5;
+
+	private final FastString[] keywords;
+
+	/** Seed of the second hash */
+	private final int seed;
+
+	/**
+	 * Displacement per bucket, negative if the bucket places its keywords
+	 * by the seeded hash
+	 */
+	private final int[] displacements;
+
+	/** Keyword per slot */
+	private final FastString[] slots;
+
+	/** Case insensitive hash per slot */
+	private final int[] hashes;
+
+	/** Index in the keywords array per slot */
+	private final int[] indexes;
+
+	private FastStringKeywords(FastString[] keywords, int seed, int[] displacements, FastString[] slots,
+			int[] hashes, int[] indexes) {
+		this.keywords = keywords;
+		this.seed = seed;
+		this.displacements = displacements;
+		this.slots = slots;
+		this.hashes = hashes;
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Builds the lookup table. The array is copied.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if two keywords are equal ignoring case
+	 */
+	public static FastStringKeywords build(FastString... keywords) {
+		FastString[] words = keywords.clone();
+		int n = words.length;
+		int[] hs = new int[n];
+		for (int i = 0; i < n; i++) {
+			hs[i] = words[i].hashCodeIgnoreCase();
+		}
+		boolean[] colliding = checkDistinct(words, hs);
+		int seed = FIRST_SEED;
+		int[] seeded = new int[n];
+		for (;;) {
+			for (int i = 0; i < n; i++) {
+				seeded[i] = words[i].hashCodeIgnoreCase(seed);
+			}
+			if (distinct(seeded)) {
+				break;
+			}
+			seed = mix(seed, 1);
+		}
+		for (int buckets = Math.max(1, n >> 1);; buckets = buckets * 2 + 1) {
+			FastStringKeywords table = tryBuild(words, hs, colliding, seed, seeded, buckets);
+			if (table != null) {
+				return table;
+			}
+		}
+	}
+
+	/**
+	 * @return number of keywords
+	 */
+	public int size() {
+		return keywords.length;
+	}
+
+	/**
+	 * @return keyword by its index in the array given to the builder
+	 */
+	public FastString keyword(int index) {
+		return keywords[index];
+	}
+
+	/**
+	 * @return index of the keyword which is equal to s ignoring case, or
+	 *         -1 if there is none
+	 */
+	public int indexOf(FastString s) {
+		int n = slots.length;
+		if (n == 0) {
+			return -1;
+		}
+		int h = s.hashCodeIgnoreCase();
+		int d = displacements[reduce(mix(h, 0), displacements.length)];
+		int i = (d >= 0) ? reduce(mix(h, d), n) : reduce(mix(s.hashCodeIgnoreCase(seed), -d), n);
+		if (hashes[i] == h && slots[i].equalsIgnoreCase(s)) {
+			return indexes[i];
+		}
+		return -1;
+	}
+
+	public boolean contains(FastString s) {
+		return indexOf(s) >= 0;
+	}
+
+	/*
+	 * Keywords which are equal ignoring case have equal hash codes, so
+	 * only the runs of equal hash codes are compared.
+	 *
+	 * @return per keyword, whether another keyword has its hash code
+	 */
+	private static boolean[] checkDistinct(FastString[] words, int[] hs) {
+		boolean[] colliding = new boolean[words.length];
+		Integer[] order = new Integer[words.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingInt(i -> hs[i]));
+		for (int start = 0, end; start < order.length; start = end) {
+			for (end = start + 1; end < order.length && hs[order[end]] == hs[order[start]]; end++) {
+				for (int k = start; k < end; k++) {
+					int i = order[k];
+					int j = order[end];
+					if (words[i].equalsIgnoreCase(words[j])) {
+						throw new IllegalArgumentException("Duplicate keywords: " + words[i] + ", " + words[j]);
+					}
+					colliding[i] = colliding[j] = true;
+				}
+			}
+		}
+		return colliding;
+	}
+
+	private static boolean distinct(int[] hs) {
+		int[] sorted = hs.clone();
+		Arrays.sort(sorted);
+		for (int k = 1; k < sorted.length; k++) {
+			if (sorted[k - 1] == sorted[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Places the largest buckets first, each one with the first
+	 * displacement which sends all its keywords to distinct free slots.
+	 * A bucket with colliding keywords is placed by the seeded hashes,
+	 * which are distinct.
+	 *
+	 * @return null if a bucket could not be placed
+	 */
+	private static FastStringKeywords tryBuild(FastString[] words, int[] hs, boolean[] colliding, int seed,
+			int[] seeded, int buckets) {
+		int n = words.length;
+		List<List<Integer>> members = new ArrayList<>(buckets);
+		for (int b = 0; b < buckets; b++) {
+			members.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < n; i++) {
+			members.get(reduce(mix(hs[i], 0), buckets)).add(i);
+		}
+		Integer[] order = new Integer[buckets];
+		for (int b = 0; b < buckets; b++) {
+			order[b] = b;
+		}
+		Arrays.sort(order, Comparator.comparingInt((Integer b) -> members.get(b).size()).reversed());
+
+		int[] displacements = new int[buckets];
+		FastString[] slots = new FastString[n];
+		int[] hashes = new int[n];
+		int[] indexes = new int[n];
+		boolean[] used = new boolean[n];
+		int[] placed = new int[n];
+		for (int b : order) {
+			List<Integer> bucket = members.get(b);
+			if (bucket.isEmpty()) {
+				break;
+			}
+			int[] keys = hs;
+			for (int i : bucket) {
+				if (colliding[i]) {
+					keys = seeded;
+				}
+			}
+			int d = 1;
+			search: for (; d < MAX_DISPLACEMENT; d++) {
+				int count = 0;
+				for (int i : bucket) {
+					int slot = reduce(mix(keys[i], d), n);
+					if (used[slot]) {
+						for (int k = 0; k < count; k++) {
+							used[placed[k]] = false;
+						}
+						continue search;
+					}
+					used[slot] = true;
+					placed[count++] = slot;
+				}
+				break;
+			}
+			if (d == MAX_DISPLACEMENT) {
+				return null;
+			}
+			displacements[b] = (keys == seeded) ? -d : d;
+			for (int i : bucket) {
+				int slot = reduce(mix(keys[i], d), n);
+				slots[slot] = words[i];
+				hashes[slot] = hs[i];
+				indexes[slot] = i;
+			}
+		}
+		return new FastStringKeywords(words, seed, displacements, slots, hashes, indexes);
+	}
+
+	private static int mix(int h, int seed) {
+		h = (h ^ seed) * 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+	/*
+	 * Maps the hash to [0, n) by multiplication instead of a division.
+	 */
+	private static int reduce(int h, int n) {
+		return (int) (((h & 0xffffffffL) * n) >>> 32);
+	}
+
+}
@@ -0,0 +1,235 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Case insensitive lookup of the standard header names: the perfect hash
+ * of FastStringKeywords against a linear scan with equalsIgnoreCase, a
+ * switch on toLowerCase() and TreeMap with String.CASE_INSENSITIVE_ORDER.
+ *
+ * The lookup keys are the header names in upper case followed by as many
+ * unknown names. The FastString keys cache their case insensitive hash as
+ * in FastStringCIMapBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringKeywordsBenchmark {
+
+	private static final String[] HEADERS = FastStringCIMapBenchmark.HEADERS;
+
+	private FastStringKeywords keywords;
+
+	private FastString[] fastHeaders;
+
+	private TreeMap<String, Integer> treeMap;
+
+	private FastString[] fastKeys;
+
+	private String[] keys;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		int size = HEADERS.length;
+		fastHeaders = new FastString[size];
+		treeMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		keys = new String[size * 2];
+		fastKeys = new FastString[size * 2];
+		for (int i = 0; i < size; i++) {
+			fastHeaders[i] = new FastString(HEADERS[i].toCharArray());
+			treeMap.put(HEADERS[i], Integer.valueOf(i));
+			keys[i] = HEADERS[i].toUpperCase(Locale.ROOT);
+			keys[size + i] = "X-Unknown-" + HEADERS[i];
+		}
+		for (int i = 0; i < keys.length; i++) {
+			fastKeys[i] = new FastString(keys[i].toCharArray());
+		}
+		keywords = FastStringKeywords.build(fastHeaders);
+	}
+
+	private int nextIndex() {
+		int i = next;
+		next = (i + 1 == keys.length) ? 0 : i + 1;
+		return i;
+	}
+
+	@Benchmark
+	public int perfectHash() {
+		return keywords.indexOf(fastKeys[nextIndex()]);
+	}
+
+	@Benchmark
+	public int linearScan() {
+		FastString key = fastKeys[nextIndex()];
+		FastString[] headers = fastHeaders;
+		for (int i = 0; i < headers.length; i++) {
+			if (headers[i].equalsIgnoreCase(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Benchmark
+	public int switchLowerCase() {
+		return switchIndex(keys[nextIndex()].toLowerCase(Locale.ROOT));
+	}
+
+	@Benchmark
+	public int treeMapCaseInsensitive() {
+		Integer i = treeMap.get(keys[nextIndex()]);
+		return (i == null) ? -1 : i.intValue();
+	}
+
+	private static int switchIndex(String name) {
+		switch (name) {
+		case "accept":
+			return 0;
+		case "accept-charset":
+			return 1;
+		case "accept-encoding":
+			return 2;
+		case "accept-language":
+			return 3;
+		case "accept-ranges":
+			return 4;
+		case "age":
+			return 5;
+		case "allow":
+			return 6;
+		case "authorization":
+			return 7;
+		case "cache-control":
+			return 8;
+		case "connection":
+			return 9;
+		case "content-disposition":
+			return 10;
+		case "content-encoding":
+			return 11;
+		case "content-language":
+			return 12;
+		case "content-length":
+			return 13;
+		case "content-location":
+			return 14;
+		case "content-range":
+			return 15;
+		case "content-type":
+			return 16;
+		case "cookie":
+			return 17;
+		case "date":
+			return 18;
+		case "etag":
+			return 19;
+		case "expect":
+			return 20;
+		case "expires":
+			return 21;
+		case "forwarded":
+			return 22;
+		case "from":
+			return 23;
+		case "host":
+			return 24;
+		case "if-match":
+			return 25;
+		case "if-modified-since":
+			return 26;
+		case "if-none-match":
+			return 27;
+		case "if-range":
+			return 28;
+		case "if-unmodified-since":
+			return 29;
+		case "last-modified":
+			return 30;
+		case "link":
+			return 31;
+		case "location":
+			return 32;
+		case "max-forwards":
+			return 33;
+		case "origin":
+			return 34;
+		case "pragma":
+			return 35;
+		case "proxy-authenticate":
+			return 36;
+		case "proxy-authorization":
+			return 37;
+		case "range":
+			return 38;
+		case "referer":
+			return 39;
+		case "retry-after":
+			return 40;
+		case "server":
+			return 41;
+		case "set-cookie":
+			return 42;
+		case "te":
+			return 43;
+		case "trailer":
+			return 44;
+		case "transfer-encoding":
+			return 45;
+		case "upgrade":
+			return 46;
+		case "user-agent":
+			return 47;
+		case "vary":
+			return 48;
+		case "via":
+			return 49;
+		case "warning":
+			return 50;
+		case "www-authenticate":
+			return 51;
+		default:
+			return -1;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringKeywordsBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -27,36 +27,241 @@ package su.tweak.openjdk;
 
 import static su.tweak.openjdk.FastString.checkBoundsOffCount;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
 final class FastStringLatin1 {
 
+    /*
+     * Case folding table for Latin1: each char is mapped to the smallest
+     * Latin1 char which is equal to it ignoring case, so two Latin1 chars
+     * are equal ignoring case if and only if their FOLD entries are equal.
+     * It is built from the same toUpperCase/toLowerCase rules that
+     * regionMatchesCI_UTF16 applies char by char.
+     */
+    private static final byte[] FOLD = new byte[256];
+
+    /*
+     * FastStringUTF16.foldCase of each Latin1 char. Unlike FOLD the keys
+     * may be outside of Latin1, they are used for hashing, which must be
+     * the same for both coders.
+     */
+    private static final char[] CASE_KEYS = new char[256];
+
+    static {
+        char[] keys = CASE_KEYS;
+        for (int c = 0; c < 256; c++) {
+            keys[c] = FastStringUTF16.foldCase((char)c);
+            int f = c;
+            for (int k = 0; k < c; k++) {
+                if (keys[k] == keys[c]) {
+                    f = k;
+                    break;
+                }
+            }
+            FOLD[c] = (byte)f;
+        }
+    }
+
+    /*
+     * SWAR (SIMD within a register) support: the value is read 8 chars
+     * at a time as a long, words which contain only ASCII chars are
+     * compared with case folded by bit masks.
+     */
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final long NON_ASCII = 0x8080808080808080L;
+
+    /*
+     * Sets the 0x20 bit of every 'A'..'Z' byte of an ASCII-only word. The
+     * high bit of a byte of (w + 0x3f) is set if it is >= 'A', of
+     * (w + 0x25) if it is > 'Z'; no carry crosses bytes below 0x80.
+     */
+    static long toLowerCaseAscii(long w) {
+        long upper = ((w + 0x3f3f3f3f3f3f3f3fL) ^ (w + 0x2525252525252525L)) & NON_ASCII;
+        return w | (upper >>> 2);
+    }
+
+    /*
+     * Index of the first byte in [from, to) with the high bit set, i.e.
+     * not an ASCII char, or to if there is none.
+     */
+    static int indexOfNonAscii(byte[] value, int from, int to) {
+        for (int limit = to - 7; from < limit; from += 8) {
+            long w = (long)LONG_VIEW.get(value, from) & NON_ASCII;
+            if (w != 0) {
+                return from + ((ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)
+                        ? Long.numberOfTrailingZeros(w) : Long.numberOfLeadingZeros(w)) / 8;
+            }
+        }
+        while (from < to && value[from] >= 0) {
+            from++;
+        }
+        return from;
+    }
+
     public static char getChar(byte[] val, int index) {
         return (char)(val[index] & 0xff);
     }
+
+    public static char charAt(byte[] value, int index) {
+        if (index < 0 || index >= value.length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return (char)(value[index] & 0xff);
+    }
+
+    public static void getChars(byte[] value, int srcBegin, int srcEnd, char dst[], int dstBegin) {
+        inflate(value, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+    }
+
+    public static int hashCode(byte[] value) {
+        int h = 0;
+        for (byte v : value) {
+            h = 31 * h + (v & 0xff);
+        }
+        return h;
+    }
+
+    public static int hashCodeCI(byte[] value) {
+        int h = 0;
+        for (byte v : value) {
+            h = 31 * h + CASE_KEYS[v & 0xff];
+        }
+        return h;
+    }
+
+    public static int hashCodeCI(byte[] value, int off, int len) {
+        int h = 0;
+        for (int i = off, last = off + len; i < last; i++) {
+            h = 31 * h + CASE_KEYS[value[i] & 0xff];
+        }
+        return h;
+    }
+
+    /*
+     * Case insensitive hash with a seed, see FastString.hashCodeIgnoreCase(int).
+     */
+    public static int hashCodeCI(byte[] value, int seed) {
+        int h = seed;
+        for (byte v : value) {
+            h = (h ^ CASE_KEYS[v & 0xff]) * 0x01000193;
+        }
+        return h;
+    }
+
+    /*
+     * The case keys of the value, see FastString.folded: Latin1 coded if
+     * all keys are Latin1 chars, UTF16 coded otherwise.
+     */
+    public static byte[] foldCase(byte[] value) {
+        int len = value.length;
+        byte[] folded = new byte[len];
+        for (int i = 0; i < len; i++) {
+            char k = CASE_KEYS[value[i] & 0xff];
+            if (k > 0xFF) {
+                char[] keys = new char[len];
+                for (int j = 0; j < len; j++) {
+                    keys[j] = CASE_KEYS[value[j] & 0xff];
+                }
+                return FastStringUTF16.toBytes(keys, 0, len);
+            }
+            folded[i] = (byte)k;
+        }
+        return folded;
+    }
+
+    /*
+     * Compares two Latin1 chars ignoring case. ASCII letters are folded
+     * by setting the 0x20 bit, everything else goes through FOLD.
+     */
+    static boolean equalsCI(int c1, int c2) {
+        if (c1 == c2) {
+            return true;
+        }
+        if (((c1 | c2) & 0x80) == 0) {
+            int l1 = c1 | 0x20;
+            return l1 == (c2 | 0x20) && l1 >= 'a' && l1 <= 'z';
+        }
+        return FOLD[c1] == FOLD[c2];
+    }
+
+    /*
+     * FOLD entry of a Latin1 char as an unsigned byte.
+     */
+    static int fold(int c) {
+        return FOLD[c] & 0xff;
+    }
+
+    /*
+     * FOLD entry of the Latin1 chars whose case key is key, or -1 if no
+     * Latin1 char is equal ignoring case to a char with that key.
+     */
+    static int foldOfKey(char key) {
+        for (int c = 0; c < 256; c++) {
+            if (CASE_KEYS[c] == key) {
+                return FOLD[c] & 0xff;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Horspool search ignoring case, see FastStringNeedle. The pattern
+     * holds the FOLD entries of the needle chars, skip is indexed by the
+     * FOLD entry of the haystack char under the last pattern char.
+     */
+    static int indexOfCI(byte[] value, int from, byte[] pattern, int[] skip) {
+        int m = pattern.length;
+        int last = m - 1;
+        byte tail = pattern[last];
+        for (int limit = value.length - m; from <= limit; ) {
+            byte f = FOLD[value[from + last] & 0xff];
+            if (f == tail) {
+                int i = last - 1;
+                while (i >= 0 && FOLD[value[from + i] & 0xff] == pattern[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    return from;
+                }
+            }
+            from += skip[f & 0xff];
+        }
+        return -1;
+    }
     
 	public static boolean regionMatchesCI(byte[] value, int toffset,
                                           byte[] other, int ooffset, int len) {
         int last = toffset + len;
-        while (toffset < last) {
-            char c1 = (char)(value[toffset++] & 0xff);
-            char c2 = (char)(other[ooffset++] & 0xff);
-            if (c1 == c2) {
+        for (int limit = last - 7; toffset < limit; toffset += 8, ooffset += 8) {
+            long w1 = (long)LONG_VIEW.get(value, toffset);
+            long w2 = (long)LONG_VIEW.get(other, ooffset);
+            if (w1 == w2) {
                 continue;
             }
-			// Try convert c1 to upper case and compare with c2
-			char u1 = Character.toUpperCase(c1);
-			if (u1 == c2) {
-				continue;
-			}
-			
-			// Try convert c2 to upper case and compare with u1
-			char u2 = Character.toUpperCase(c2);
-			if (u1 == u2) {
-				continue;
-			}
-            if (Character.toLowerCase(u1) == Character.toLowerCase(u2)) {
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
                 continue;
             }
-            return false;
+            for (int i = 0; i < 8; i++) {
+                if (!equalsCI(value[toffset + i] & 0xff, other[ooffset + i] & 0xff)) {
+                    return false;
+                }
+            }
+        }
+        while (toffset < last) {
+            if (!equalsCI(value[toffset++] & 0xff, other[ooffset++] & 0xff)) {
+                return false;
+            }
         }
         return true;
     }
@@ -91,27 +296,29 @@ final class FastStringLatin1 {
     
 	public static boolean fullMatchesCI(byte[] value,
             byte[] other, int len) {
-    	for (int i = 0; i < len; i++) {
-            char c1 = (char)(value[i] & 0xff);
-            char c2 = (char)(other[i] & 0xff);
-            if (c1 == c2) {
+        int i = 0;
+        for (int limit = len - 7; i < limit; i += 8) {
+            long w1 = (long)LONG_VIEW.get(value, i);
+            long w2 = (long)LONG_VIEW.get(other, i);
+            if (w1 == w2) {
                 continue;
             }
-			// Try convert c1 to upper case and compare with c2
-			char u1 = Character.toUpperCase(c1);
-			if (u1 == c2) {
-				continue;
-			}
-			
-			// Try convert c2 to upper case and compare with u1
-			char u2 = Character.toUpperCase(c2);
-			if (u1 == u2) {
-				continue;
-			}
-            if (Character.toLowerCase(u1) == Character.toLowerCase(u2)) {
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
                 continue;
             }
-            return false;
+            for (int j = i; j < i + 8; j++) {
+                if (!equalsCI(value[j] & 0xff, other[j] & 0xff)) {
+                    return false;
+                }
+            }
+        }
+        for (; i < len; i++) {
+            if (!equalsCI(value[i] & 0xff, other[i] & 0xff)) {
+                return false;
+            }
         }
         return true;
     }
@@ -143,6 +350,204 @@ final class FastStringLatin1 {
         return true;
     }
     
+    public static int compareTo(byte[] value, byte[] other) {
+        int len1 = value.length;
+        int len2 = other.length;
+        int lim = Math.min(len1, len2);
+        // Arrays.mismatch compares a word at a time
+        int k = Arrays.mismatch(value, 0, lim, other, 0, lim);
+        if (k >= 0) {
+            return getChar(value, k) - getChar(other, k);
+        }
+        return len1 - len2;
+    }
+
+    public static int compareToUTF16(byte[] value, byte[] other) {
+        int len1 = value.length;
+        int len2 = other.length >> 1;
+        int lim = Math.min(len1, len2);
+        for (int k = 0; k < lim; k++) {
+            char c1 = getChar(value, k);
+            char c2 = FastStringUTF16.getChar(other, k);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return len1 - len2;
+    }
+
+    /*
+     * Same order as String.CASE_INSENSITIVE_ORDER: the first chars which
+     * differ ignoring case are compared by their case keys. Words of equal
+     * ASCII chars ignoring case are skipped 8 chars at a time.
+     */
+    public static int compareToCI(byte[] value, byte[] other) {
+        int len1 = value.length;
+        int len2 = other.length;
+        int lim = Math.min(len1, len2);
+        int k = 0;
+        for (int limit = lim - 7; k < limit; k += 8) {
+            long w1 = (long)LONG_VIEW.get(value, k);
+            long w2 = (long)LONG_VIEW.get(other, k);
+            if (w1 != w2 && (((w1 | w2) & NON_ASCII) != 0
+                    || toLowerCaseAscii(w1) != toLowerCaseAscii(w2))) {
+                break;
+            }
+        }
+        for (; k < lim; k++) {
+            int c1 = value[k] & 0xff;
+            int c2 = other[k] & 0xff;
+            if (c1 != c2) {
+                char k1 = CASE_KEYS[c1];
+                char k2 = CASE_KEYS[c2];
+                if (k1 != k2) {
+                    return k1 - k2;
+                }
+            }
+        }
+        return len1 - len2;
+    }
+
+    public static int compareToCI_UTF16(byte[] value, byte[] other) {
+        int len1 = value.length;
+        int len2 = other.length >> 1;
+        int lim = Math.min(len1, len2);
+        for (int k = 0; k < lim; k++) {
+            char c1 = getChar(value, k);
+            char c2 = FastStringUTF16.getChar(other, k);
+            if (c1 != c2) {
+                char k1 = CASE_KEYS[c1];
+                char k2 = FastStringUTF16.foldCase(c2);
+                if (k1 != k2) {
+                    return k1 - k2;
+                }
+            }
+        }
+        return len1 - len2;
+    }
+
+    /*
+     * Kernels over byte buffers, see FastStringDirect. Indexes are
+     * absolute and the buffers are in native byte order, like LONG_VIEW.
+     */
+    public static char getChar(ByteBuffer val, int index) {
+        return (char)(val.get(index) & 0xff);
+    }
+
+    public static int hashCode(ByteBuffer value, int offset, int len) {
+        int h = 0;
+        for (int i = offset, last = offset + len; i < last; i++) {
+            h = 31 * h + (value.get(i) & 0xff);
+        }
+        return h;
+    }
+
+    public static int hashCodeCI(ByteBuffer value, int offset, int len) {
+        int h = 0;
+        for (int i = offset, last = offset + len; i < last; i++) {
+            h = 31 * h + CASE_KEYS[value.get(i) & 0xff];
+        }
+        return h;
+    }
+
+    /*
+     * Compares len bytes, the bytes of a UTF16 value as well.
+     */
+    public static boolean regionEquals(ByteBuffer value, int toffset,
+                                       byte[] other, int ooffset, int len) {
+        int last = toffset + len;
+        for (int limit = last - 7; toffset < limit; toffset += 8, ooffset += 8) {
+            if (value.getLong(toffset) != (long)LONG_VIEW.get(other, ooffset)) {
+                return false;
+            }
+        }
+        while (toffset < last) {
+            if (value.get(toffset++) != other[ooffset++]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean regionEquals(ByteBuffer value, int toffset,
+                                       ByteBuffer other, int ooffset, int len) {
+        int last = toffset + len;
+        for (int limit = last - 7; toffset < limit; toffset += 8, ooffset += 8) {
+            if (value.getLong(toffset) != other.getLong(ooffset)) {
+                return false;
+            }
+        }
+        while (toffset < last) {
+            if (value.get(toffset++) != other.get(ooffset++)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean regionMatchesCI(ByteBuffer value, int toffset,
+                                          byte[] other, int ooffset, int len) {
+        int last = toffset + len;
+        for (int limit = last - 7; toffset < limit; toffset += 8, ooffset += 8) {
+            long w1 = value.getLong(toffset);
+            long w2 = (long)LONG_VIEW.get(other, ooffset);
+            if (w1 == w2) {
+                continue;
+            }
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
+                continue;
+            }
+            for (int i = 0; i < 8; i++) {
+                if (!equalsCI(value.get(toffset + i) & 0xff, other[ooffset + i] & 0xff)) {
+                    return false;
+                }
+            }
+        }
+        while (toffset < last) {
+            if (!equalsCI(value.get(toffset++) & 0xff, other[ooffset++] & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean regionMatchesCI(ByteBuffer value, int toffset,
+                                          ByteBuffer other, int ooffset, int len) {
+        int last = toffset + len;
+        for (int limit = last - 7; toffset < limit; toffset += 8, ooffset += 8) {
+            long w1 = value.getLong(toffset);
+            long w2 = other.getLong(ooffset);
+            if (w1 == w2) {
+                continue;
+            }
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
+                continue;
+            }
+            for (int i = 0; i < 8; i++) {
+                if (!equalsCI(value.get(toffset + i) & 0xff, other.get(ooffset + i) & 0xff)) {
+                    return false;
+                }
+            }
+        }
+        while (toffset < last) {
+            if (!equalsCI(value.get(toffset++) & 0xff, other.get(ooffset++) & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static FastString newString(byte[] val, int index, int len) {
+        return new FastString(Arrays.copyOfRange(val, index, index + len),
+                              FastString.LATIN1);
+    }
+
     private static void inflate(byte[] src, int srcOff, char[] dst, int dstOff, int len) {
         for (int i = 0; i < len; i++) {
             dst[dstOff++] = (char)(src[srcOff++] & 0xff);
@@ -167,4 +572,62 @@ final class FastStringLatin1 {
         char[] dst = new char[value.length];
         inflate(value, 0, dst, 0, value.length);
         return dst;
-    }}
+    }
+
+    static class CharsSpliterator implements Spliterator.OfInt {
+        private final byte[] array;
+        private int index;        // current index, modified on advance/split
+        private final int fence;  // one past last index
+        private final int cs;
+
+        CharsSpliterator(byte[] array, int acs) {
+            this(array, 0, array.length, acs);
+        }
+
+        CharsSpliterator(byte[] array, int origin, int fence, int acs) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.cs = acs | Spliterator.ORDERED | Spliterator.SIZED
+                      | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid)
+                   ? null
+                   : new CharsSpliterator(array, lo, index = mid, cs);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            byte[] a; int i, hi; // hoist accesses and checks from loop
+            if (action == null)
+                throw new NullPointerException();
+            if (((a = array).length >= (hi = fence)) &&
+                ((i = index) >= 0) && i < (index = hi)) {
+                do { action.accept(a[i] & 0xff); } while (++i < hi);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (index >= 0 && index < fence) {
+                action.accept(array[index++] & 0xff);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() { return (long)(fence - index); }
+
+        @Override
+        public int characteristics() {
+            return cs;
+        }
+    }
+}
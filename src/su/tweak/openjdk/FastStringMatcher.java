@@ -0,0 +1,273 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Case insensitive multi-pattern matcher: finds every occurrence of a set
+ * of patterns (blocked header names, SQL injection markers...) in one pass
+ * over a string, instead of a regionMatches(true, ...) call per pattern and
+ * position.
+ *
+ * It is an Aho-Corasick automaton over case keys, see
+ * {@link FastString#folded(FastString)}. The transitions on Latin1 chars
+ * are a dense DFA table indexed by state and char, so a Latin1 string
+ * costs one table load per char. UTF16 chars above U+00FF go through
+ * sparse per state transitions and failure links.
+ *
+ * A matcher is immutable and may be shared between threads.
+ */
+public final class FastStringMatcher {
+
+	/**
+	 * Receives the matches of {@link FastStringMatcher#match}.
+	 */
+	public interface Handler {
+
+		/**
+		 * @param pattern
+		 *            index of the pattern
+		 * @param start
+		 *            index of the first char of the match
+		 * @param end
+		 *            index after the last char of the match
+		 * @return {@code false} to stop matching
+		 */
+		boolean onMatch(int pattern, int start, int end);
+
+	}
+
+	/** Case keys of the Latin1 chars */
+	private static final char[] LATIN1_KEYS = new char[256];
+
+	static {
+		for (int c = 0; c < 256; c++) {
+			LATIN1_KEYS[c] = FastStringUTF16.foldCase((char) c);
+		}
+	}
+
+	private final FastString[] patterns;
+
+	/** Next state by state << 8 | Latin1 char */
+	private final int[] delta;
+
+	/** Sorted case keys of the children per state */
+	private final char[][] keys;
+
+	/** Child states per state, in the order of keys */
+	private final int[][] children;
+
+	/** Failure link per state */
+	private final int[] fail;
+
+	/** Patterns which end at a state, including by its failure links */
+	private final int[][] outputs;
+
+	private FastStringMatcher(FastString[] patterns, int[] delta, char[][] keys, int[][] children, int[] fail,
+			int[][] outputs) {
+		this.patterns = patterns;
+		this.delta = delta;
+		this.keys = keys;
+		this.children = children;
+		this.fail = fail;
+		this.outputs = outputs;
+	}
+
+	/**
+	 * Builds the automaton. The array is copied.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a pattern is empty
+	 */
+	public static FastStringMatcher build(FastString... patterns) {
+		FastString[] ps = patterns.clone();
+		// trie over case keys
+		List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+		List<int[]> ends = new ArrayList<>();
+		trie.add(new TreeMap<>());
+		ends.add(null);
+		for (int p = 0; p < ps.length; p++) {
+			FastString pattern = ps[p];
+			if (pattern.length() == 0) {
+				throw new IllegalArgumentException("Empty pattern " + p);
+			}
+			int s = 0;
+			for (int i = 0; i < pattern.length(); i++) {
+				Character k = FastStringUTF16.foldCase(pattern.charAt(i));
+				Integer next = trie.get(s).get(k);
+				if (next == null) {
+					next = trie.size();
+					trie.add(new TreeMap<>());
+					ends.add(null);
+					trie.get(s).put(k, next);
+				}
+				s = next;
+			}
+			ends.set(s, append(ends.get(s), p));
+		}
+
+		int n = trie.size();
+		char[][] keys = new char[n][];
+		int[][] children = new int[n][];
+		for (int s = 0; s < n; s++) {
+			TreeMap<Character, Integer> map = trie.get(s);
+			keys[s] = new char[map.size()];
+			children[s] = new int[map.size()];
+			int i = 0;
+			for (Map.Entry<Character, Integer> e : map.entrySet()) {
+				keys[s][i] = e.getKey();
+				children[s][i++] = e.getValue();
+			}
+		}
+
+		// failure links and outputs in breadth first order, so the states
+		// a link points to are complete
+		int[] fail = new int[n];
+		int[][] outputs = new int[n][];
+		int[] delta = new int[n << 8];
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = 0;
+		while (head < tail) {
+			int s = queue[head++];
+			if (s != 0) {
+				outputs[s] = concat(ends.get(s), outputs[fail[s]]);
+			}
+			for (int c = 0; c < 256; c++) {
+				int t = child(keys, children, s, LATIN1_KEYS[c]);
+				delta[(s << 8) | c] = (t >= 0) ? t : (s == 0) ? 0 : delta[(fail[s] << 8) | c];
+			}
+			for (int i = 0; i < keys[s].length; i++) {
+				int t = children[s][i];
+				fail[t] = (s == 0) ? 0 : next(keys, children, fail, fail[s], keys[s][i]);
+				queue[tail++] = t;
+			}
+		}
+		return new FastStringMatcher(ps, delta, keys, children, fail, outputs);
+	}
+
+	private static int[] append(int[] a, int p) {
+		if (a == null) {
+			return new int[] { p };
+		}
+		int[] b = Arrays.copyOf(a, a.length + 1);
+		b[a.length] = p;
+		return b;
+	}
+
+	private static int[] concat(int[] a, int[] b) {
+		if (a == null || b == null) {
+			return (a == null) ? b : a;
+		}
+		int[] c = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, c, a.length, b.length);
+		return c;
+	}
+
+	private static int child(char[][] keys, int[][] children, int s, char key) {
+		int i = Arrays.binarySearch(keys[s], key);
+		return (i >= 0) ? children[s][i] : -1;
+	}
+
+	/*
+	 * Sparse transition: follows the failure links until a state has a
+	 * child for the key.
+	 */
+	private static int next(char[][] keys, int[][] children, int[] fail, int s, char key) {
+		for (;;) {
+			int t = child(keys, children, s, key);
+			if (t >= 0) {
+				return t;
+			}
+			if (s == 0) {
+				return 0;
+			}
+			s = fail[s];
+		}
+	}
+
+	/**
+	 * @return number of patterns
+	 */
+	public int size() {
+		return patterns.length;
+	}
+
+	/**
+	 * @return the pattern with the index i
+	 */
+	public FastString pattern(int i) {
+		return patterns[i];
+	}
+
+	/**
+	 * Reports every occurrence of every pattern in the string ignoring
+	 * case, in the order of their ends; the patterns which end at the same
+	 * char are reported longest first.
+	 *
+	 * @return {@code false} if the handler stopped matching
+	 */
+	public boolean match(FastString s, Handler handler) {
+		byte[] value = s.value();
+		int[] delta = this.delta;
+		int state = 0;
+		if (s.coder() == FastString.LATIN1) {
+			for (int i = 0; i < value.length; i++) {
+				state = delta[(state << 8) | (value[i] & 0xff)];
+				if (outputs[state] != null && !report(state, i + 1, handler)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		int length = value.length >> 1;
+		for (int i = 0; i < length; i++) {
+			char c = FastStringUTF16.getChar(value, i);
+			state = (c < 256) ? delta[(state << 8) | c]
+					: next(keys, children, fail, state, FastStringUTF16.foldCase(c));
+			if (outputs[state] != null && !report(state, i + 1, handler)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean report(int state, int end, Handler handler) {
+		for (int p : outputs[state]) {
+			if (!handler.onMatch(p, end - patterns[p].length(), end)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if the string contains any of the patterns
+	 *         ignoring case
+	 */
+	public boolean foundIn(FastString s) {
+		return !match(s, (pattern, start, end) -> false);
+	}
+
+}
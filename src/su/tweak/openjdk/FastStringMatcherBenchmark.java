@@ -0,0 +1,147 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Counting the occurrences of a set of case insensitive tokens (blocked
+ * headers and SQL injection markers) in a request: FastStringMatcher
+ * against regionMatches(true, ...) per token and position and against a
+ * Pattern alternation with CASE_INSENSITIVE and UNICODE_CASE.
+ *
+ * All three count every occurrence, overlapping ones included: the
+ * Pattern search restarts one char after the start of each match. The
+ * alternation finds one token per start position, which is enough as no
+ * token is a prefix of another.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringMatcherBenchmark {
+
+	static final String[] TOKENS = { "X-Forwarded-Host", "X-Original-URL", "X-Rewrite-URL", "Proxy-Authorization",
+			"Max-Forwards", "TRACE", "union select", "union all select", "or 1=1", "' or '", "--", "/*", "*/",
+			"xp_cmdshell", "information_schema", "sleep(", "benchmark(", "waitfor delay", "load_file(",
+			"into outfile", "drop table", "exec(", "char(", "concat(", "<script", "javascript:", "onerror=",
+			"onload=", "eval(", "document.cookie" };
+
+	private static final String REQUEST = "GET /search?q=Some+query&page=2 HTTP/1.1\r\n"
+			+ "Host: example.com\r\nUser-Agent: Mozilla/5.0 (X11; Linux x86_64)\r\n"
+			+ "Accept: text/html,application/xhtml+xml\r\nAccept-Language: en-US,en;q=0.5\r\n"
+			+ "Cookie: session=0123456789abcdef; theme=dark\r\n";
+
+	@Param({ "256", "4096" })
+	public int length;
+
+	@Param({ "false", "true" })
+	public boolean utf16;
+
+	private FastStringMatcher matcher;
+
+	private FastString[] tokens;
+
+	private Pattern pattern;
+
+	private String string;
+
+	private FastString fastString;
+
+	@Setup
+	public void setup() {
+		tokens = new FastString[TOKENS.length];
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < TOKENS.length; i++) {
+			tokens[i] = new FastString(TOKENS[i].toCharArray());
+			regex.append((i == 0) ? "" : "|").append(Pattern.quote(TOKENS[i]));
+		}
+		matcher = FastStringMatcher.build(tokens);
+		pattern = Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+		StringBuilder sb = new StringBuilder(length);
+		if (utf16) {
+			sb.append("Referer: https://example.com/поиск\r\n");
+		}
+		sb.append("X-Forwarded-Host: evil\r\n");
+		while (sb.length() < length - 40) {
+			sb.append(REQUEST);
+		}
+		sb.setLength(length - 40);
+		sb.append("\r\n\r\nq=1' UNION SELECT password FROM users --");
+		string = sb.toString();
+		fastString = new FastString(string.toCharArray());
+	}
+
+	@Benchmark
+	public int matcher() {
+		int[] count = new int[1];
+		matcher.match(fastString, (p, start, end) -> {
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	@Benchmark
+	public int regionMatches() {
+		int count = 0;
+		int n = fastString.length();
+		for (FastString token : tokens) {
+			int m = token.length();
+			for (int k = 0; k <= n - m; k++) {
+				if (fastString.regionMatches(true, k, token, 0, m)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int pattern() {
+		int count = 0;
+		Matcher m = pattern.matcher(string);
+		for (int from = 0; from < string.length() && m.find(from); from = m.start() + 1) {
+			count++;
+		}
+		return count;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringMatcherBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
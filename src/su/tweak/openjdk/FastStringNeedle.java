@@ -0,0 +1,150 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.Arrays;
+
+/**
+ * Precompiled needle for case insensitive substring search, see
+ * {@link FastString#indexOfIgnoreCase(FastString, int)}.
+ *
+ * The search is Boyer-Moore-Horspool over case folded chars: the window is
+ * compared from its last char backwards and then shifted by the distance
+ * of the last window char from the end of the needle. A Latin1 haystack is
+ * folded through FastStringLatin1's FOLD table and searched with the
+ * needle in the same alphabet; a UTF16 haystack is folded to case keys. The
+ * tables for both haystack coders are built by {@link #compile(FastString)},
+ * so a needle which is searched for many times pays for them once.
+ *
+ * A needle is immutable and may be shared between threads.
+ */
+public final class FastStringNeedle {
+
+	/**
+	 * Number of positions below which FastString.indexOfIgnoreCase scans
+	 * instead of building the tables.
+	 */
+	static final int SCAN_LIMIT = 256;
+
+	private final FastString needle;
+
+	/** Case keys of the needle chars */
+	private final char[] keys;
+
+	/** FOLD entries of the needle chars, {@code null} if some have none */
+	private final byte[] latin1Pattern;
+
+	/** Shifts by the FOLD entry of a Latin1 haystack char */
+	private final int[] latin1Skip;
+
+	/** Shifts by the low byte of the case key of a UTF16 haystack char */
+	private final int[] utf16Skip;
+
+	private FastStringNeedle(FastString needle) {
+		this.needle = needle;
+		int m = needle.length();
+		char[] k = new char[m];
+		for (int i = 0; i < m; i++) {
+			k[i] = FastStringUTF16.foldCase(needle.charAt(i));
+		}
+		this.keys = k;
+		this.latin1Pattern = latin1Pattern(needle, k);
+		this.latin1Skip = new int[256];
+		this.utf16Skip = new int[256];
+		Arrays.fill(latin1Skip, m);
+		Arrays.fill(utf16Skip, m);
+		for (int i = 0; i < m - 1; i++) {
+			if (latin1Pattern != null) {
+				latin1Skip[latin1Pattern[i] & 0xff] = m - 1 - i;
+			}
+			utf16Skip[k[i] & 0xff] = m - 1 - i;
+		}
+	}
+
+	private static byte[] latin1Pattern(FastString needle, char[] keys) {
+		int m = keys.length;
+		byte[] pattern = new byte[m];
+		if (needle.coder() == FastString.LATIN1) {
+			byte[] value = needle.value();
+			for (int i = 0; i < m; i++) {
+				pattern[i] = (byte) FastStringLatin1.fold(value[i] & 0xff);
+			}
+			return pattern;
+		}
+		for (int i = 0; i < m; i++) {
+			int f = FastStringLatin1.foldOfKey(keys[i]);
+			if (f < 0) {
+				// e.g. Cyrillic, no Latin1 char is equal to it ignoring case
+				return null;
+			}
+			pattern[i] = (byte) f;
+		}
+		return pattern;
+	}
+
+	/**
+	 * Compiles a needle.
+	 */
+	public static FastStringNeedle compile(FastString needle) {
+		return new FastStringNeedle(needle);
+	}
+
+	/**
+	 * @return the needle which was compiled
+	 */
+	public FastString needle() {
+		return needle;
+	}
+
+	/**
+	 * Index of the first occurrence of the needle in the haystack ignoring
+	 * case, starting at the index {@code from}, as
+	 * {@link FastString#indexOfIgnoreCase(FastString, int)}.
+	 */
+	public int indexIn(FastString haystack, int from) {
+		int n = haystack.length();
+		int m = keys.length;
+		if (from < 0) {
+			from = 0;
+		}
+		if (m == 0) {
+			return Math.min(from, n);
+		}
+		if (from > n - m) {
+			return -1;
+		}
+		if (haystack.coder() == FastString.LATIN1) {
+			return (latin1Pattern == null) ? -1
+					: FastStringLatin1.indexOfCI(haystack.value(), from, latin1Pattern, latin1Skip);
+		}
+		return FastStringUTF16.indexOfCI(haystack.value(), from, keys, utf16Skip);
+	}
+
+	/**
+	 * @return {@code true} if the haystack contains the needle ignoring case
+	 */
+	public boolean foundIn(FastString haystack) {
+		return indexIn(haystack, 0) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return needle.toString();
+	}
+
+}
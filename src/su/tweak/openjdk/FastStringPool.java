@@ -0,0 +1,294 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent pool of canonical {@link FastString} instances, like
+ * {@link String#intern()}, optionally case insensitive.
+ *
+ * Open addressing with linear probing over an {@link AtomicReferenceArray}
+ * of weak or soft references to the pooled strings. Lookups take no locks,
+ * a new string is inserted with a CAS into a free slot. Slots are never
+ * freed in place, so two threads interning equal strings race for the same
+ * free slot and the loser finds the winner's string: the pool never hands
+ * out two canonical instances of one content.
+ *
+ * References cleared by the GC stay in their slots until the table is
+ * rebuilt. It is rebuilt under a lock when half of the slots are used; the
+ * old slots are marked as moved, threads which meet such a slot wait for
+ * the new table. The new capacity is sized by the live strings only, so
+ * the table also shrinks. Only the rebuild is locked: with linear probing
+ * a string may sit several slots away from its home, so no thread may
+ * insert into the new table before every old slot is moved, or two equal
+ * strings could be pooled.
+ *
+ * Strings must not be {@code null}.
+ */
+public final class FastStringPool {
+
+	/** How the pooled strings are referenced */
+	public enum Reclamation {
+
+		/** Strings are dropped as soon as they are not used elsewhere */
+		WEAK,
+
+		/** Strings are dropped on memory pressure */
+		SOFT
+
+	}
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	/** Marks the slots of a table which is being rebuilt */
+	private static final Reference<FastString> MOVED = new WeakReference<>(null);
+
+	private static final class Table {
+
+		final AtomicReferenceArray<Reference<FastString>> slots;
+
+		/** Slots which are not null */
+		final AtomicInteger used;
+
+		/** The table is rebuilt when used reaches threshold */
+		final int threshold;
+
+		Table(AtomicReferenceArray<Reference<FastString>> slots, int used) {
+			this.slots = slots;
+			this.used = new AtomicInteger(used);
+			this.threshold = slots.length() >> 1;
+		}
+
+	}
+
+	private final boolean ignoreCase;
+
+	private final Reclamation reclamation;
+
+	private final Object resizeLock = new Object();
+
+	private volatile Table table;
+
+	/**
+	 * Case sensitive pool of weakly referenced strings.
+	 */
+	public FastStringPool() {
+		this(false, Reclamation.WEAK);
+	}
+
+	/**
+	 * @param ignoreCase
+	 *            if true, strings which are equal ignoring case share the
+	 *            instance which was interned first
+	 * @param reclamation
+	 *            how the pooled strings are referenced
+	 */
+	public FastStringPool(boolean ignoreCase, Reclamation reclamation) {
+		if (reclamation == null) {
+			throw new NullPointerException("reclamation");
+		}
+		this.ignoreCase = ignoreCase;
+		this.reclamation = reclamation;
+		this.table = new Table(new AtomicReferenceArray<>(DEFAULT_CAPACITY), 0);
+	}
+
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+
+	/**
+	 * Returns the canonical instance of the string. If the pool has no
+	 * string which is equal to it (ignoring case if the pool does), the
+	 * string itself is added and returned.
+	 */
+	public FastString intern(FastString s) {
+		int h = hash(s);
+		for (;;) {
+			Table t = table;
+			AtomicReferenceArray<Reference<FastString>> slots = t.slots;
+			int mask = slots.length() - 1;
+			int i = spread(h) & mask;
+			for (;;) {
+				Reference<FastString> ref = slots.get(i);
+				if (ref == null) {
+					if (slots.compareAndSet(i, null, reference(s))) {
+						if (t.used.incrementAndGet() >= t.threshold) {
+							resize(t);
+						}
+						return s;
+					}
+					// lost the race for the slot, read it again
+					continue;
+				}
+				if (ref == MOVED) {
+					break;
+				}
+				FastString v = ref.get();
+				if (v != null && matches(v, h, s)) {
+					return v;
+				}
+				i = (i + 1) & mask;
+			}
+			awaitResize(t);
+		}
+	}
+
+	/**
+	 * @return the canonical instance of the string or {@code null} if the
+	 *         pool has none
+	 */
+	public FastString get(FastString s) {
+		int h = hash(s);
+		for (;;) {
+			Table t = table;
+			AtomicReferenceArray<Reference<FastString>> slots = t.slots;
+			int mask = slots.length() - 1;
+			for (int i = spread(h) & mask;; i = (i + 1) & mask) {
+				Reference<FastString> ref = slots.get(i);
+				if (ref == null) {
+					return null;
+				}
+				if (ref == MOVED) {
+					break;
+				}
+				FastString v = ref.get();
+				if (v != null && matches(v, h, s)) {
+					return v;
+				}
+			}
+			awaitResize(t);
+		}
+	}
+
+	/**
+	 * @return the number of pooled strings which are not reclaimed yet,
+	 *         counted by a scan of the table
+	 */
+	public int size() {
+		AtomicReferenceArray<Reference<FastString>> slots = table.slots;
+		int size = 0;
+		for (int i = 0; i < slots.length(); i++) {
+			Reference<FastString> ref = slots.get(i);
+			if (ref != null && ref.get() != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	private Reference<FastString> reference(FastString s) {
+		return (reclamation == Reclamation.SOFT) ? new SoftReference<>(s) : new WeakReference<>(s);
+	}
+
+	private boolean matches(FastString v, int h, FastString s) {
+		if (v == s) {
+			return true;
+		}
+		return ignoreCase ? (v.hashCodeIgnoreCase() == h && v.equalsIgnoreCase(s))
+				: (v.hashCode() == h && v.equals(s));
+	}
+
+	private int hash(FastString s) {
+		return ignoreCase ? s.hashCodeIgnoreCase() : s.hashCode();
+	}
+
+	/*
+	 * Marks every slot of the table as moved and copies the live strings
+	 * to a new table, which is published when it is complete. A CAS which
+	 * won a slot before it was marked is seen by getAndSet, so no insertion
+	 * is lost.
+	 */
+	private void resize(Table t) {
+		synchronized (resizeLock) {
+			if (table != t) {
+				return;
+			}
+			AtomicReferenceArray<Reference<FastString>> old = t.slots;
+			int length = old.length();
+			Reference<FastString>[] live = newTable(length);
+			int count = 0;
+			for (int i = 0; i < length; i++) {
+				Reference<FastString> ref = old.getAndSet(i, MOVED);
+				if (ref != null && ref.get() != null) {
+					live[count++] = ref;
+				}
+			}
+			int capacity = tableSizeFor(count << 1);
+			Reference<FastString>[] slots = newTable(capacity);
+			int mask = capacity - 1;
+			int used = 0;
+			for (int j = 0; j < count; j++) {
+				FastString v = live[j].get();
+				if (v == null) {
+					continue;
+				}
+				int i = spread(hash(v)) & mask;
+				while (slots[i] != null) {
+					i = (i + 1) & mask;
+				}
+				slots[i] = live[j];
+				used++;
+			}
+			table = new Table(new AtomicReferenceArray<>(slots), used);
+		}
+	}
+
+	/*
+	 * Slots are only marked as moved under the resize lock, which is held
+	 * until the new table is published.
+	 */
+	private void awaitResize(Table t) {
+		synchronized (resizeLock) {
+			assert table != t;
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Reference<FastString>[] newTable(int length) {
+		return new Reference[length];
+	}
+
+	/*
+	 * Table size for a load factor of 1/2.
+	 */
+	private static int tableSizeFor(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity >> 1 <= expectedSize && capacity < MAX_CAPACITY) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	/*
+	 * Strings which differ in the last chars have close hash codes, which
+	 * would form long clusters with linear probing, so they are scattered
+	 * with the golden ratio first.
+	 */
+	private static int spread(int h) {
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Contention of {@link FastStringPool#intern(FastString)} against
+ * {@link ConcurrentHashMap#computeIfAbsent}.
+ *
+ * Every thread interns its own copies of the same distinct tokens, round
+ * robin from a different start. The pools are created empty for every
+ * iteration, so an iteration begins with the insertions and continues
+ * with lookups of the canonical instances.
+ *
+ * main() runs with 1, 2, 4, ... 64 threads, or with the thread counts
+ * given as arguments.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(Threads.MAX)
+public class FastStringPoolBenchmark {
+
+	private static final int MAX_THREADS = 64;
+
+	@State(Scope.Benchmark)
+	public static class Pools {
+
+		public FastStringPool pool;
+
+		public FastStringPool poolIgnoreCase;
+
+		public ConcurrentHashMap<FastString, FastString> map;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			pool = new FastStringPool();
+			poolIgnoreCase = new FastStringPool(true, FastStringPool.Reclamation.WEAK);
+			map = new ConcurrentHashMap<>();
+		}
+
+	}
+
+	@State(Scope.Thread)
+	public static class Tokens {
+
+		@Param({ "1024", "65536" })
+		public int distinct;
+
+		public FastString[] tokens;
+
+		public int index;
+
+		@Setup
+		public void setup() {
+			tokens = new FastString[distinct];
+			for (int i = 0; i < tokens.length; i++) {
+				tokens[i] = new FastString(("X-Token-" + i).toCharArray());
+			}
+			index = (int) (Thread.currentThread().getId() * 7919) & (tokens.length - 1);
+		}
+
+		public FastString next() {
+			FastString token = tokens[index];
+			index = (index + 1) & (tokens.length - 1);
+			return token;
+		}
+
+	}
+
+	@Benchmark
+	public FastString pool(Pools pools, Tokens tokens) {
+		return pools.pool.intern(tokens.next());
+	}
+
+	@Benchmark
+	public FastString poolIgnoreCase(Pools pools, Tokens tokens) {
+		return pools.poolIgnoreCase.intern(tokens.next());
+	}
+
+	@Benchmark
+	public FastString computeIfAbsent(Pools pools, Tokens tokens) {
+		return pools.map.computeIfAbsent(tokens.next(), k -> k);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		int[] threads;
+		if (args.length > 0) {
+			threads = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				threads[i] = Integer.parseInt(args[i]);
+			}
+		} else {
+			threads = new int[Integer.numberOfTrailingZeros(MAX_THREADS) + 1];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = 1 << i;
+			}
+		}
+
+		for (int t : threads) {
+			Options opt = new OptionsBuilder().include(FastStringPoolBenchmark.class.getSimpleName()).forks(1)
+					.threads(t).build();
+
+			new Runner(opt).run();
+		}
+	}
+
+}
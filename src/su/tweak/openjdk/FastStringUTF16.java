@@ -27,42 +27,209 @@ package su.tweak.openjdk;
 
 import static su.tweak.openjdk.FastString.checkBoundsOffCount;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
 final class FastStringUTF16 {
 
-	public static char getChar(byte[] val, int index) {
-        index <<= 1;
-        return (char)(((val[index++] & 0xff) << HI_BYTE_SHIFT) |
-                      ((val[index]   & 0xff) << LO_BYTE_SHIFT));
+    /*
+     * The chars are stored in native byte order, so a char is a single
+     * load or store through CHAR_VIEW and LONG_VIEW reads 4 of them.
+     */
+    private static final VarHandle CHAR_VIEW =
+            MethodHandles.byteArrayViewVarHandle(char[].class, ByteOrder.nativeOrder());
+
+    public static char getChar(byte[] val, int index) {
+        return (char)CHAR_VIEW.get(val, index << 1);
+    }
+
+    public static char charAt(byte[] value, int index) {
+        if (index < 0 || index >= value.length >> 1) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return getChar(value, index);
+    }
+
+    /*
+     * 4 chars per load: one CHAR_VIEW load per char made short strings
+     * hash slower than the two byte loads it replaced.
+     */
+    public static int hashCode(byte[] value) {
+        int h = 0;
+        int length = value.length >> 1;
+        int i = 0;
+        for (int limit = length - 3; i < limit; i += 4) {
+            long w = (long)LONG_VIEW.get(value, i << 1);
+            h = 31 * 31 * 31 * 31 * h
+                    + 31 * 31 * 31 * charAt(w, 0)
+                    + 31 * 31 * charAt(w, 1)
+                    + 31 * charAt(w, 2)
+                    + charAt(w, 3);
+        }
+        for (; i < length; i++) {
+            h = 31 * h + getChar(value, i);
+        }
+        return h;
+    }
+
+    public static int hashCodeCI(byte[] value) {
+        return hashCodeCI(value, 0, value.length >> 1);
+    }
+
+    /*
+     * Case insensitive hash with a seed, see FastString.hashCodeIgnoreCase(int).
+     */
+    public static int hashCodeCI(byte[] value, int seed) {
+        int h = seed;
+        int length = value.length >> 1;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ foldCase(getChar(value, i))) * 0x01000193;
+        }
+        return h;
+    }
+
+    public static int hashCodeCI(byte[] value, int off, int len) {
+        int h = 0;
+        for (int i = off, last = off + len; i < last; i++) {
+            h = 31 * h + foldCase(getChar(value, i));
+        }
+        return h;
+    }
+
+    /*
+     * The case keys of the value, see FastString.folded: Latin1 coded if
+     * all keys are Latin1 chars, UTF16 coded otherwise.
+     */
+    public static byte[] foldCase(byte[] value) {
+        int len = value.length >> 1;
+        char[] keys = new char[len];
+        for (int i = 0; i < len; i++) {
+            keys[i] = foldCase(getChar(value, i));
+        }
+        byte[] folded = compress(keys, 0, len);
+        return (folded != null) ? folded : toBytes(keys, 0, len);
+    }
+
+    /*
+     * Maps a char to the key of its case insensitive class: two chars
+     * are equal by equalsCI if and only if their keys are equal.
+     */
+    static char foldCase(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char)(c | 0x20) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /*
+     * Horspool search ignoring case, see FastStringNeedle. The keys are
+     * the case keys of the needle chars, skip is indexed by the low byte
+     * of the key of the haystack char under the last key; keys which share
+     * a low byte share the smallest shift.
+     */
+    static int indexOfCI(byte[] value, int from, char[] keys, int[] skip) {
+        int m = keys.length;
+        int last = m - 1;
+        char tail = keys[last];
+        for (int limit = (value.length >> 1) - m; from <= limit; ) {
+            char k = foldCase(getChar(value, from + last));
+            if (k == tail) {
+                int i = last - 1;
+                while (i >= 0 && foldCase(getChar(value, from + i)) == keys[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    return from;
+                }
+            }
+            from += skip[k & 0xff];
+        }
+        return -1;
+    }
+
+    /*
+     * Compares two chars ignoring case.
+     */
+    static boolean equalsCI(char c1, char c2) {
+        if (c1 == c2) {
+            return true;
+        }
+		// Try convert c1 to upper case and compare with c2
+		char u1 = Character.toUpperCase(c1);
+		if (u1 == c2) {
+			return true;
+		}
+		
+		// Try convert c2 to upper case and compare with u1
+		char u2 = Character.toUpperCase(c2);
+		if (u1 == u2) {
+			return true;
+		}
+        // Unfortunately, conversion to uppercase does not work properly
+        // for the Georgian alphabet, which has strange rules about case
+        // conversion.  So we need to make one last check before
+        // exiting.
+        return Character.toLowerCase(u1) == Character.toLowerCase(u2);
+    }
+
+    /*
+     * SWAR support: the value is read 4 chars at a time as a long, words
+     * which contain only ASCII chars are compared with case folded by bit
+     * masks. Like CHAR_VIEW the view is in native byte order.
+     */
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final long NON_ASCII = 0xff80ff80ff80ff80L;
+
+    /*
+     * Sets the 0x20 bit of every 'A'..'Z' char of an ASCII-only word, see
+     * FastStringLatin1.toLowerCaseAscii.
+     */
+    static long toLowerCaseAscii(long w) {
+        long upper = ((w + 0x003f003f003f003fL) ^ (w + 0x0025002500250025L))
+                & 0x0080008000800080L;
+        return w | (upper >>> 2);
+    }
+
+    /*
+     * The char at the index i of a word read through LONG_VIEW, so a word
+     * with non-ASCII chars is not loaded again char by char.
+     */
+    private static char charAt(long w, int i) {
+        return (char)(w >>> (isBigEndian() ? 48 - (i << 4) : i << 4));
     }
 
     public static boolean regionMatchesCI(byte[] value, int toffset,
                                           byte[] other, int ooffset, int len) {
         int last = toffset + len;
-        while (toffset < last) {
-            char c1 = getChar(value, toffset++);
-            char c2 = getChar(other, ooffset++);
-            if (c1 == c2) {
+        for (int limit = last - 3; toffset < limit; toffset += 4, ooffset += 4) {
+            long w1 = (long)LONG_VIEW.get(value, toffset << 1);
+            long w2 = (long)LONG_VIEW.get(other, ooffset << 1);
+            if (w1 == w2) {
                 continue;
             }
-			// Try convert c1 to upper case and compare with c2
-			char u1 = Character.toUpperCase(c1);
-			if (u1 == c2) {
-				continue;
-			}
-			
-			// Try convert c2 to upper case and compare with u1
-			char u2 = Character.toUpperCase(c2);
-			if (u1 == u2) {
-				continue;
-			}
-            // Unfortunately, conversion to uppercase does not work properly
-            // for the Georgian alphabet, which has strange rules about case
-            // conversion.  So we need to make one last check before
-            // exiting.
-            if (Character.toLowerCase(u1) == Character.toLowerCase(u2)) {
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
                 continue;
             }
-            return false;
+            for (int i = 0; i < 4; i++) {
+                if (!equalsCI(charAt(w1, i), charAt(w2, i))) {
+                    return false;
+                }
+            }
+        }
+        while (toffset < last) {
+            if (!equalsCI(getChar(value, toffset++), getChar(other, ooffset++))) {
+                return false;
+            }
         }
         return true;
     }
@@ -98,31 +265,29 @@ final class FastStringUTF16 {
 
     public static boolean fullMatchesCI(byte[] value,
                                           byte[] other, int len) {
-        for (int i = 0; i < len; i++) {
-            char c1 = getChar(value, i);
-            char c2 = getChar(other, i);
-            if (c1 == c2) {
+        int i = 0;
+        for (int limit = len - 3; i < limit; i += 4) {
+            long w1 = (long)LONG_VIEW.get(value, i << 1);
+            long w2 = (long)LONG_VIEW.get(other, i << 1);
+            if (w1 == w2) {
                 continue;
             }
-			// Try convert c1 to upper case and compare with c2
-			char u1 = Character.toUpperCase(c1);
-			if (u1 == c2) {
-				continue;
-			}
-			
-			// Try convert c2 to upper case and compare with u1
-			char u2 = Character.toUpperCase(c2);
-			if (u1 == u2) {
-				continue;
-			}
-            // Unfortunately, conversion to uppercase does not work properly
-            // for the Georgian alphabet, which has strange rules about case
-            // conversion.  So we need to make one last check before
-            // exiting.
-            if (Character.toLowerCase(u1) == Character.toLowerCase(u2)) {
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
                 continue;
             }
-            return false;
+            for (int j = 0; j < 4; j++) {
+                if (!equalsCI(charAt(w1, j), charAt(w2, j))) {
+                    return false;
+                }
+            }
+        }
+        for (; i < len; i++) {
+            if (!equalsCI(getChar(value, i), getChar(other, i))) {
+                return false;
+            }
         }
         return true;
     }
@@ -153,22 +318,50 @@ final class FastStringUTF16 {
         }
         return true;
     }
-    private static boolean isBigEndian() {
-    	return false;	
+    public static int compareTo(byte[] value, byte[] other) {
+        int len1 = value.length >> 1;
+        int len2 = other.length >> 1;
+        int lim = Math.min(len1, len2);
+        for (int k = 0; k < lim; k++) {
+            char c1 = getChar(value, k);
+            char c2 = getChar(other, k);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return len1 - len2;
+    }
+
+    public static int compareToLatin1(byte[] value, byte[] other) {
+        return -FastStringLatin1.compareToUTF16(other, value);
     }
 
-    static final int HI_BYTE_SHIFT;
-    static final int LO_BYTE_SHIFT;
-    static {
-        if (isBigEndian()) {
-            HI_BYTE_SHIFT = 8;
-            LO_BYTE_SHIFT = 0;
-        } else {
-            HI_BYTE_SHIFT = 0;
-            LO_BYTE_SHIFT = 8;
+    public static int compareToCI(byte[] value, byte[] other) {
+        int len1 = value.length >> 1;
+        int len2 = other.length >> 1;
+        int lim = Math.min(len1, len2);
+        for (int k = 0; k < lim; k++) {
+            char c1 = getChar(value, k);
+            char c2 = getChar(other, k);
+            if (c1 != c2) {
+                char k1 = foldCase(c1);
+                char k2 = foldCase(c2);
+                if (k1 != k2) {
+                    return k1 - k2;
+                }
+            }
         }
+        return len1 - len2;
+    }
+
+    public static int compareToCI_Latin1(byte[] value, byte[] other) {
+        return -FastStringLatin1.compareToCI_UTF16(other, value);
+    }
+
+    private static boolean isBigEndian() {
+        return ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
     }
-    
+
     public static byte[] newBytesFor(int len) {
         if (len < 0) {
             throw new NegativeArraySizeException();
@@ -181,9 +374,7 @@ final class FastStringUTF16 {
     }
 
     public static void putChar(byte[] val, int index, int c) {
-        index <<= 1;
-        val[index++] = (byte)(c >> HI_BYTE_SHIFT);
-        val[index]   = (byte)(c >> LO_BYTE_SHIFT);
+        CHAR_VIEW.set(val, index << 1, (char)c);
     }    
     public static byte[] toBytes(char[] value, int off, int len) {
         byte[] val = newBytesFor(len);
@@ -195,6 +386,166 @@ final class FastStringUTF16 {
     }
     static final int MAX_LENGTH = Integer.MAX_VALUE >> 1;
 
+    // compressedCopy char[] -> byte[]
+    public static int compress(char[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        for (int i = 0; i < len; i++) {
+            char c = src[srcOff];
+            if (c > 0xFF) {
+                len = 0;
+                break;
+            }
+            dst[dstOff] = (byte)c;
+            srcOff++;
+            dstOff++;
+        }
+        return len;
+    }
+
+    public static byte[] compress(char[] val, int off, int len) {
+        byte[] ret = new byte[len];
+        if (compress(val, off, ret, 0, len) == len) {
+            return ret;
+        }
+        return null;
+    }
+
+
+    // compressedCopy byte[] -> byte[]
+    public static int compress(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        // We need a range check here because 'getChar' has no checks
+        checkBoundsOffCount(srcOff << 1, len << 1, src.length);
+        for (int i = 0; i < len; i++) {
+            char c = getChar(src, srcOff);
+            if (c > 0xFF) {
+                len = 0;
+                break;
+            }
+            dst[dstOff] = (byte)c;
+            srcOff++;
+            dstOff++;
+        }
+        return len;
+    }
+
+    public static byte[] compress(byte[] val, int off, int len) {
+        byte[] ret = new byte[len];
+        if (compress(val, off, ret, 0, len) == len) {
+            return ret;
+        }
+        return null;
+    }
+
+    /*
+     * Kernels over byte buffers, see FastStringDirect. Indexes are
+     * absolute, in chars, and the buffers are in BYTE_ORDER, like
+     * LONG_VIEW.
+     */
+    static final ByteOrder BYTE_ORDER = ByteOrder.nativeOrder();
+
+    public static char getChar(ByteBuffer val, int index) {
+        return val.getChar(index << 1);
+    }
+
+    public static int hashCode(ByteBuffer value, int offset, int len) {
+        int h = 0;
+        for (int i = offset, last = offset + len; i < last; i++) {
+            h = 31 * h + getChar(value, i);
+        }
+        return h;
+    }
+
+    public static int hashCodeCI(ByteBuffer value, int offset, int len) {
+        int h = 0;
+        for (int i = offset, last = offset + len; i < last; i++) {
+            h = 31 * h + foldCase(getChar(value, i));
+        }
+        return h;
+    }
+
+    public static boolean regionEquals(ByteBuffer value, int toffset,
+                                       byte[] other, int ooffset, int len) {
+        int last = toffset + len;
+        for (int limit = last - 3; toffset < limit; toffset += 4, ooffset += 4) {
+            if (value.getLong(toffset << 1) != (long)LONG_VIEW.get(other, ooffset << 1)) {
+                return false;
+            }
+        }
+        while (toffset < last) {
+            if (getChar(value, toffset++) != getChar(other, ooffset++)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean regionMatchesCI(ByteBuffer value, int toffset,
+                                          byte[] other, int ooffset, int len) {
+        int last = toffset + len;
+        for (int limit = last - 3; toffset < limit; toffset += 4, ooffset += 4) {
+            long w1 = value.getLong(toffset << 1);
+            long w2 = (long)LONG_VIEW.get(other, ooffset << 1);
+            if (w1 == w2) {
+                continue;
+            }
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
+                continue;
+            }
+            for (int i = 0; i < 4; i++) {
+                if (!equalsCI(charAt(w1, i), charAt(w2, i))) {
+                    return false;
+                }
+            }
+        }
+        while (toffset < last) {
+            if (!equalsCI(getChar(value, toffset++), getChar(other, ooffset++))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean regionMatchesCI(ByteBuffer value, int toffset,
+                                          ByteBuffer other, int ooffset, int len) {
+        int last = toffset + len;
+        for (int limit = last - 3; toffset < limit; toffset += 4, ooffset += 4) {
+            long w1 = value.getLong(toffset << 1);
+            long w2 = other.getLong(ooffset << 1);
+            if (w1 == w2) {
+                continue;
+            }
+            if (((w1 | w2) & NON_ASCII) == 0) {
+                if (toLowerCaseAscii(w1) != toLowerCaseAscii(w2)) {
+                    return false;
+                }
+                continue;
+            }
+            for (int i = 0; i < 4; i++) {
+                if (!equalsCI(charAt(w1, i), charAt(w2, i))) {
+                    return false;
+                }
+            }
+        }
+        while (toffset < last) {
+            if (!equalsCI(getChar(value, toffset++), getChar(other, ooffset++))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static FastString newString(byte[] val, int index, int len) {
+        if (FastString.COMPACT_STRINGS) {
+            byte[] buf = compress(val, index, len);
+            if (buf != null) {
+                return new FastString(buf, FastString.LATIN1);
+            }
+        }
+        int last = index + len;
+        return new FastString(Arrays.copyOfRange(val, index << 1, last << 1), FastString.UTF16);
+    }
 
     public static char[] toChars(byte[] value) {
         char[] dst = new char[value.length >> 1];
@@ -203,9 +554,157 @@ final class FastStringUTF16 {
     }
     public static void getChars(byte[] value, int srcBegin, int srcEnd, char dst[], int dstBegin) {
         // We need a range check here because 'getChar' has no checks
-        checkBoundsOffCount(srcBegin, srcEnd - srcBegin, value.length);
+        checkBoundsOffCount(srcBegin, srcEnd - srcBegin, value.length >> 1);
         for (int i = srcBegin; i < srcEnd; i++) {
             dst[dstBegin++] = getChar(value, i);
         }
     }    
+
+    static class CharsSpliterator implements Spliterator.OfInt {
+        private final byte[] array;
+        private int index;        // current index, modified on advance/split
+        private final int fence;  // one past last index
+        private final int cs;
+
+        CharsSpliterator(byte[] array, int acs) {
+            this(array, 0, array.length >> 1, acs);
+        }
+
+        CharsSpliterator(byte[] array, int origin, int fence, int acs) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.cs = acs | Spliterator.ORDERED | Spliterator.SIZED
+                      | Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid)
+                   ? null
+                   : new CharsSpliterator(array, lo, index = mid, cs);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            byte[] a; int i, hi; // hoist accesses and checks from loop
+            if (action == null)
+                throw new NullPointerException();
+            if (((a = array).length >> 1) >= (hi = fence) &&
+                ((i = index) >= 0) && i < (index = hi)) {
+                do {
+                    action.accept(getChar(a, i));
+                } while (++i < hi);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i = index;
+            if (i >= 0 && i < fence) {
+                action.accept(getChar(array, i));
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() { return (long)(fence - index); }
+
+        @Override
+        public int characteristics() {
+            return cs;
+        }
+    }
+
+    static class CodePointsSpliterator implements Spliterator.OfInt {
+        private final byte[] array;
+        private int index;        // current index, modified on advance/split
+        private final int fence;  // one past last index
+        private final int cs;
+
+        CodePointsSpliterator(byte[] array, int acs) {
+            this(array, 0, array.length >> 1, acs);
+        }
+
+        CodePointsSpliterator(byte[] array, int origin, int fence, int acs) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+            this.cs = acs | Spliterator.ORDERED;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid)
+                return null;
+
+            int midOneLess;
+            // If the mid-point intersects a surrogate pair
+            if (Character.isLowSurrogate(getChar(array, mid)) &&
+                Character.isHighSurrogate(getChar(array, midOneLess = (mid -1)))) {
+                // If there is only one pair it cannot be split
+                if (lo >= midOneLess)
+                    return null;
+                // Shift the mid-point to align with the surrogate pair
+                return new CodePointsSpliterator(array, lo, index = midOneLess, cs);
+            }
+            return new CodePointsSpliterator(array, lo, index = mid, cs);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            byte[] a; int i, hi; // hoist accesses and checks from loop
+            if (action == null)
+                throw new NullPointerException();
+            if (((a = array).length >> 1) >= (hi = fence) &&
+                (i = index) >= 0 && i < hi) {
+                // Advance one code point from the index, i, to the midpoint, hi
+                index = hi;
+                do {
+                    i = advance(a, i, hi, action);
+                } while (i < hi);
+            }
+        }
+
+        // Advance one code point from the index, i, to the fence, hi
+        private static int advance(byte[] a, int i, int hi, IntConsumer action) {
+            char c1 = getChar(a, i++);
+            int cp = c1;
+            if (Character.isHighSurrogate(c1) && i < hi) {
+                char c2 = getChar(a, i);
+                if (Character.isLowSurrogate(c2)) {
+                    i++;
+                    cp = Character.toCodePoint(c1, c2);
+                }
+            }
+            action.accept(cp);
+            return i;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i = index;
+            if (i >= 0 && i < fence) {
+                index = advance(array, i, fence, action);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() { return (long)(fence - index); }
+
+        @Override
+        public int characteristics() {
+            return cs;
+        }
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The FastStringUTF16 kernels on Cyrillic and CJK text, by length: the
+ * per char loops (hashCode, hashCodeCI, compareToCI) and the word at a
+ * time loops (regionMatchesCI, fullMatchesCI) with ASCII runs between the
+ * words.
+ *
+ * Run before and after a change of the UTF16 layout and compare with
+ * su.tweak.openjdk.bench.BaselineTool.
+ *
+ * The native byte order layout against the big endian one it replaced,
+ * 3 forks of 3 warmup and 5 measurement iterations, change of ns/op:
+ *
+ * <pre>
+ *                    length    1      8     64    512   4096
+ * hash          Cyrillic     -18%   -42%   -27%   -27%   -35%
+ *               CJK          -32%   -36%   -12%   -28%   -39%
+ * compareToCI   Cyrillic     -51%   -28%   -11%   -28%    -9%
+ *               CJK          -49%    +4%   -57%   -59%   -63%
+ * </pre>
+ *
+ * Beyond the error: hash at every length but 1 Cyrillic, compareToCI at
+ * 1 char, 8 Cyrillic and 64..4096 CJK. The 30 results of hashCI,
+ * regionMatchesCI and fullMatchesCI stay within the noise of this single
+ * CPU machine, which is up to 50% between runs of the same code. The
+ * three of them reported slower (hashCI 1 Cyrillic, regionMatchesCI 8 and
+ * 4096 Cyrillic) were unchanged or faster with 6 forks; hashCI of one
+ * Cyrillic char measured 16 and 20 ns/op in two such runs of one build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringUTF16Benchmark {
+
+	public enum Script {
+		CYRILLIC("Строка заголовка, "), CJK("用户数据的标题 ");
+
+		final String text;
+
+		Script(String text) {
+			this.text = text;
+		}
+	}
+
+	@Param({ "1", "8", "64", "512", "4096" })
+	public int length;
+
+	@Param
+	public Script script;
+
+	private byte[] value;
+	private byte[] _value;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(length);
+		while (sb.length() < length) {
+			sb.append(script.text);
+		}
+		sb.setLength(length);
+		String string = sb.toString();
+		value = FastStringUTF16.toBytes(string.toCharArray(), 0, length);
+		_value = FastStringUTF16.toBytes(string.toUpperCase().toCharArray(), 0, length);
+	}
+
+	@Benchmark
+	public int hash() {
+		return FastStringUTF16.hashCode(value);
+	}
+
+	@Benchmark
+	public int hashCI() {
+		return FastStringUTF16.hashCodeCI(value);
+	}
+
+	@Benchmark
+	public int compareToCI() {
+		return FastStringUTF16.compareToCI(value, _value);
+	}
+
+	@Benchmark
+	public boolean regionMatchesCI() {
+		return FastStringUTF16.regionMatchesCI(value, 0, _value, 0, length);
+	}
+
+	@Benchmark
+	public boolean fullMatchesCI() {
+		return FastStringUTF16.fullMatchesCI(value, _value, length);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringUTF16Benchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
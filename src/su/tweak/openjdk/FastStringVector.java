@@ -0,0 +1,75 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+/**
+ * Optional Vector API (jdk.incubator.vector) kernels for case insensitive
+ * matching.
+ *
+ * The implementation lives in the src-vector source folder, which is only
+ * compiled by the "vector" Maven profile (JDK 16+). It is loaded when that
+ * class is on the class path and the jdk.incubator.vector module is
+ * resolved (--add-modules jdk.incubator.vector), otherwise {@link #KERNELS}
+ * is {@code null} and {@link #THRESHOLD} never lets the callers in, so the
+ * scalar FastStringLatin1/FastStringUTF16 loops are used.
+ */
+abstract class FastStringVector {
+
+	private static final String KERNELS_CLASS = "su.tweak.openjdk.FastStringVectorKernels";
+
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	/** Loaded kernels or {@code null} */
+	static final FastStringVector KERNELS;
+
+	/**
+	 * Minimal length in chars which is matched with vector kernels. It is
+	 * {@link Integer#MAX_VALUE} if the kernels are not available.
+	 */
+	static final int THRESHOLD;
+
+	static {
+		FastStringVector kernels = null;
+		if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+			try {
+				kernels = (FastStringVector) Class.forName(KERNELS_CLASS).getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				kernels = null;
+			}
+		}
+		KERNELS = kernels;
+		THRESHOLD = (kernels != null) ? kernels.threshold() : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return minimal length in chars for which the kernels are faster
+	 *         than the scalar loops
+	 */
+	abstract int threshold();
+
+	/**
+	 * Vector version of {@link FastStringLatin1#regionMatchesCI}
+	 */
+	abstract boolean regionMatchesCILatin1(byte[] value, int toffset, byte[] other, int ooffset, int len);
+
+	/**
+	 * Vector version of {@link FastStringUTF16#regionMatchesCI}
+	 */
+	abstract boolean regionMatchesCIUTF16(byte[] value, int toffset, byte[] other, int ooffset, int len);
+
+}
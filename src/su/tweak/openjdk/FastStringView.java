@@ -0,0 +1,124 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static su.tweak.openjdk.FastString.LATIN1;
+import static su.tweak.openjdk.FastString.checkBoundsBeginEnd;
+import static su.tweak.openjdk.FastString.checkIndex;
+
+/**
+ * Zero-copy subsequence of a {@link FastString}.
+ *
+ * A view shares the value array of its string and addresses it through an
+ * offset and a length, so slicing allocates only the view itself. Use
+ * {@link #toFastString()} when a copy is actually wanted, e.g. to keep a
+ * small slice of a large buffer without retaining the whole buffer.
+ *
+ * @see FastString#subSequence(int, int)
+ */
+public final class FastStringView implements CharSequence {
+
+	private final byte[] value;
+
+	private final byte coder;
+
+	/** Offset of the first char in {@code value}, in chars */
+	private final int offset;
+
+	private final int length;
+
+	FastStringView(byte[] value, byte coder, int offset, int length) {
+		this.value = value;
+		this.coder = coder;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		checkIndex(index, length);
+		return (coder == LATIN1) ? FastStringLatin1.getChar(value, offset + index)
+				: FastStringUTF16.getChar(value, offset + index);
+	}
+
+	/**
+	 * @return a view of the subsequence, sharing the value array
+	 */
+	@Override
+	public FastStringView subSequence(int beginIndex, int endIndex) {
+		checkBoundsBeginEnd(beginIndex, endIndex, length);
+		return new FastStringView(value, coder, offset + beginIndex, endIndex - beginIndex);
+	}
+
+	/**
+	 * Compares this view to a string, ignoring case considerations, as
+	 * {@link FastString#equalsIgnoreCase(FastString)} does.
+	 */
+	public boolean equalsIgnoreCase(FastString anotherString) {
+		return (anotherString != null) && (anotherString.length() == length)
+				&& FastString.regionMatchesCI(value, coder, offset, anotherString.value(), anotherString.coder(), 0,
+						length);
+	}
+
+	/**
+	 * Tests if a region of this view and a region of a string are equal,
+	 * see {@link FastString#regionMatches(int, FastString, int, int)}.
+	 */
+	public boolean regionMatches(int toffset, FastString other, int ooffset, int len) {
+		return regionMatches(false, toffset, other, ooffset, len);
+	}
+
+	/**
+	 * Tests if a region of this view and a region of a string are equal,
+	 * see {@link FastString#regionMatches(boolean, int, FastString, int, int)}.
+	 */
+	public boolean regionMatches(boolean ignoreCase, int toffset, FastString other, int ooffset, int len) {
+		// Note: toffset, ooffset, or len might be near -1>>>1.
+		if ((ooffset < 0) || (toffset < 0) || (toffset > (long) length - len)
+				|| (ooffset > (long) other.length() - len)) {
+			return false;
+		}
+		return ignoreCase
+				? FastString.regionMatchesCI(value, coder, offset + toffset, other.value(), other.coder(), ooffset, len)
+				: FastString.regionMatches(value, coder, offset + toffset, other.value(), other.coder(), ooffset, len);
+	}
+
+	/**
+	 * @return a new string with a copy of the chars of this view
+	 */
+	public FastString toFastString() {
+		return (coder == LATIN1) ? FastStringLatin1.newString(value, offset, length)
+				: FastStringUTF16.newString(value, offset, length);
+	}
+
+	@Override
+	public String toString() {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (coder == LATIN1) ? FastStringLatin1.getChar(value, offset + i)
+					: FastStringUTF16.getChar(value, offset + i);
+		}
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Slice-and-compare: every header name of a request is sliced from the
+ * request buffer and compared with a header name ignoring case.
+ *
+ * String.substring and FastStringView.toFastString copy every slice,
+ * FastString.subSequence does not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FastStringViewBenchmark {
+
+	private static final String REQUEST = "GET /index.html HTTP/1.1\r\n"
+			+ "Host: www.example.com\r\n"
+			+ "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:45.0) Gecko/20100101 Firefox/45.0\r\n"
+			+ "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n"
+			+ "Accept-Language: en-US,en;q=0.5\r\n"
+			+ "Accept-Encoding: gzip, deflate\r\n"
+			+ "Cookie: session=0123456789abcdef\r\n"
+			+ "Connection: keep-alive\r\n"
+			+ "Cache-Control: max-age=0\r\n"
+			+ "Content-Type: text/plain\r\n"
+			+ "\r\n";
+
+	private static final String NAME = "CONTENT-TYPE";
+
+	private String request;
+
+	private FastString fastRequest;
+
+	private String name;
+
+	private FastString fastName;
+
+	/** Begin and end index of every header name */
+	private int[] begins;
+
+	private int[] ends;
+
+	@Setup
+	public void setup() {
+		request = new String(REQUEST.toCharArray());
+		fastRequest = new FastString(REQUEST.toCharArray());
+		name = new String(NAME.toCharArray());
+		fastName = new FastString(NAME.toCharArray());
+
+		String[] lines = REQUEST.split("\r\n");
+		begins = new int[lines.length - 1];
+		ends = new int[lines.length - 1];
+		int lineBegin = lines[0].length() + 2;
+		for (int i = 1; i < lines.length; i++) {
+			begins[i - 1] = lineBegin;
+			ends[i - 1] = lineBegin + lines[i].indexOf(':');
+			lineBegin += lines[i].length() + 2;
+		}
+	}
+
+	@Benchmark
+	public int substringString() {
+		int matches = 0;
+		for (int i = 0; i < begins.length; i++) {
+			if (request.substring(begins[i], ends[i]).equalsIgnoreCase(name)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int subSequenceFast() {
+		int matches = 0;
+		for (int i = 0; i < begins.length; i++) {
+			if (fastRequest.subSequence(begins[i], ends[i]).equalsIgnoreCase(fastName)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int toFastStringFast() {
+		int matches = 0;
+		for (int i = 0; i < begins.length; i++) {
+			if (fastRequest.subSequence(begins[i], ends[i]).toFastString().equalsIgnoreCase(fastName)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	/*
+	 * No slice at all
+	 */
+	@Benchmark
+	public int regionMatchesString() {
+		int matches = 0;
+		for (int i = 0; i < begins.length; i++) {
+			int len = ends[i] - begins[i];
+			if (len == name.length() && request.regionMatches(true, begins[i], name, 0, len)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringViewBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch operations over arrays of {@link FastString}.
+ *
+ * A batch is compared in a plain loop over both arrays. Batches larger
+ * than the threshold are split in halves down to the threshold and the
+ * parts run in a {@link ForkJoinPool}, the common pool by default. The
+ * default threshold is the "faststrings.threshold" system property, or
+ * {@value #DEFAULT_THRESHOLD}.
+ */
+public final class FastStrings {
+
+	public static final int DEFAULT_THRESHOLD = 8192;
+
+	/** Number of pairs below which a batch is compared sequentially */
+	static final int THRESHOLD = Math.max(Integer.getInteger("faststrings.threshold", DEFAULT_THRESHOLD), 64);
+
+	private FastStrings() {
+	}
+
+	/**
+	 * Compares the strings of two arrays pairwise ignoring case:
+	 * {@code out[i]} is set as {@code a[i].equalsIgnoreCase(b[i])}, two
+	 * {@code null} elements are equal.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the arrays are not of the same length
+	 */
+	public static void equalsIgnoreCaseAll(FastString[] a, FastString[] b, boolean[] out) {
+		equalsIgnoreCaseAll(a, b, out, ForkJoinPool.commonPool(), THRESHOLD);
+	}
+
+	/**
+	 * See {@link #equalsIgnoreCaseAll(FastString[], FastString[], boolean[])}.
+	 *
+	 * @param pool
+	 *            the pool for the parts of a large batch
+	 * @param threshold
+	 *            number of pairs below which the batch is compared in the
+	 *            calling thread
+	 */
+	public static void equalsIgnoreCaseAll(FastString[] a, FastString[] b, boolean[] out, ForkJoinPool pool,
+			int threshold) {
+		checkLengths(a, b, out.length);
+		if (a.length <= threshold) {
+			equalsIgnoreCase(a, b, out, 0, a.length);
+		} else {
+			pool.invoke(new EqualsIgnoreCaseTask(a, b, out, null, 0, a.length, Math.max(threshold, 1)));
+		}
+	}
+
+	/**
+	 * Compares the strings of two arrays pairwise ignoring case, see
+	 * {@link #equalsIgnoreCaseAll(FastString[], FastString[], boolean[])}.
+	 *
+	 * @return the indexes of the equal pairs
+	 */
+	public static BitSet equalsIgnoreCaseAll(FastString[] a, FastString[] b) {
+		return equalsIgnoreCaseAll(a, b, ForkJoinPool.commonPool(), THRESHOLD);
+	}
+
+	/**
+	 * See {@link #equalsIgnoreCaseAll(FastString[], FastString[])} and
+	 * {@link #equalsIgnoreCaseAll(FastString[], FastString[], boolean[], ForkJoinPool, int)}.
+	 */
+	public static BitSet equalsIgnoreCaseAll(FastString[] a, FastString[] b, ForkJoinPool pool, int threshold) {
+		checkLengths(a, b, a.length);
+		long[] words = new long[(a.length + 63) >>> 6];
+		if (a.length <= threshold) {
+			equalsIgnoreCase(a, b, words, 0, a.length);
+		} else {
+			// the parts own whole words
+			pool.invoke(new EqualsIgnoreCaseTask(a, b, null, words, 0, a.length, Math.max(threshold, 64)));
+		}
+		return BitSet.valueOf(words);
+	}
+
+	private static void checkLengths(FastString[] a, FastString[] b, int out) {
+		if (a.length != b.length || a.length != out) {
+			throw new IllegalArgumentException(
+					"Lengths differ: " + a.length + ", " + b.length + ", " + out);
+		}
+	}
+
+	private static boolean equalsIgnoreCase(FastString s1, FastString s2) {
+		return (s1 == s2) || (s1 != null && s1.equalsIgnoreCase(s2));
+	}
+
+	private static void equalsIgnoreCase(FastString[] a, FastString[] b, boolean[] out, int from, int to) {
+		for (int i = from; i < to; i++) {
+			out[i] = equalsIgnoreCase(a[i], b[i]);
+		}
+	}
+
+	/*
+	 * from is a multiple of 64
+	 */
+	private static void equalsIgnoreCase(FastString[] a, FastString[] b, long[] words, int from, int to) {
+		for (int w = from; w < to; w += 64) {
+			long word = 0;
+			for (int i = w, end = Math.min(w + 64, to); i < end; i++) {
+				if (equalsIgnoreCase(a[i], b[i])) {
+					word |= 1L << i;
+				}
+			}
+			words[w >>> 6] = word;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class EqualsIgnoreCaseTask extends RecursiveAction {
+
+		private final FastString[] a;
+		private final FastString[] b;
+
+		/** Either the booleans or the words of the result */
+		private final boolean[] out;
+		private final long[] words;
+
+		private final int from;
+		private final int to;
+		private final int threshold;
+
+		EqualsIgnoreCaseTask(FastString[] a, FastString[] b, boolean[] out, long[] words, int from, int to,
+				int threshold) {
+			this.a = a;
+			this.b = b;
+			this.out = out;
+			this.words = words;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= threshold) {
+				if (out != null) {
+					equalsIgnoreCase(a, b, out, from, to);
+				} else {
+					equalsIgnoreCase(a, b, words, from, to);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			if (words != null) {
+				// up to a whole word, which is below to as the part has
+				// more than 64 pairs
+				mid = (mid + 63) & ~63;
+			}
+			invokeAll(new EqualsIgnoreCaseTask(a, b, out, words, from, mid, threshold),
+					new EqualsIgnoreCaseTask(a, b, out, words, mid, to, threshold));
+		}
+
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Batch equalsIgnoreCase of name pairs, by batch size and parallelism:
+ * FastStrings.equalsIgnoreCaseAll against a sequential loop and against
+ * IntStream.parallel() over the same arrays, in a pool of the same
+ * parallelism.
+ *
+ * Half of the pairs are equal ignoring case, a quarter of the names are
+ * Cyrillic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FastStringsBatchBenchmark {
+
+	private static final String[] NAMES = { "Ivanov", "Petrova", "Smith-Jones", "O'Brien", "van der Berg",
+			"Müller", "Иванов", "Сидорова" };
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	@Param({ "1", "2", "4", "8" })
+	public int parallelism;
+
+	private FastString[] a;
+	private FastString[] b;
+	private boolean[] out;
+
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(24);
+		a = new FastString[size];
+		b = new FastString[size];
+		for (int i = 0; i < size; i++) {
+			String name = NAMES[random.nextInt(NAMES.length)] + random.nextInt(1000);
+			String other = random.nextBoolean() ? name.toUpperCase() : NAMES[random.nextInt(NAMES.length)] + i;
+			a[i] = new FastString(name.toCharArray());
+			b[i] = new FastString(other.toCharArray());
+		}
+		out = new boolean[size];
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public boolean[] loop() {
+		for (int i = 0; i < size; i++) {
+			out[i] = a[i].equalsIgnoreCase(b[i]);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public boolean[] batch() {
+		FastStrings.equalsIgnoreCaseAll(a, b, out, pool, FastStrings.DEFAULT_THRESHOLD);
+		return out;
+	}
+
+	@Benchmark
+	public BitSet batchBitSet() {
+		return FastStrings.equalsIgnoreCaseAll(a, b, pool, FastStrings.DEFAULT_THRESHOLD);
+	}
+
+	/*
+	 * A parallel stream runs in the pool which submits it
+	 */
+	@Benchmark
+	public boolean[] parallelStream() {
+		pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> out[i] = a[i].equalsIgnoreCase(b[i])))
+				.join();
+		return out;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(FastStringsBatchBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
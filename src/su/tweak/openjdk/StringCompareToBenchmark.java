@@ -0,0 +1,208 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * compareTo(...) and compareToIgnoreCase(...) test
+ *
+ * Jdk9String has no compareTo implementation, so only String and
+ * FastString are compared.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringCompareToBenchmark {
+
+	private static final String _STRING = "IDENTIFIER_NAME_02";
+	private static final String STRING = "identifier_name_01";
+
+	private static String _string = new String(_STRING.toCharArray());
+	private static String string = new String(STRING.toCharArray());
+
+	private static final FastString _FAST_STRING = new FastString(_STRING.toCharArray());
+	private static final FastString FAST_STRING = new FastString(STRING.toCharArray());
+
+	private static FastString _fastString = new FastString(_STRING.toCharArray());
+	private static FastString fastString = new FastString(STRING.toCharArray());
+
+	private static final int SORT_SIZE = 1000;
+
+	private static String[] strings = new String[SORT_SIZE];
+	private static FastString[] fastStrings = new FastString[SORT_SIZE];
+
+	static {
+		Random random = new Random(42);
+		for (int i = 0; i < SORT_SIZE; i++) {
+			String s = "Column_" + Integer.toString(random.nextInt(), 36);
+			s = random.nextBoolean() ? s.toUpperCase() : s;
+			strings[i] = s;
+			fastStrings[i] = new FastString(s.toCharArray());
+		}
+	}
+
+	/*
+	 * const.compareTo(Const)
+	 * 
+	 */
+	@Benchmark
+	public int constConstString() {
+		return STRING.compareTo(_STRING);
+	}
+
+	/*
+	 * var.compareTo(Var)
+	 * 
+	 */
+	@Benchmark
+	public int varVarString() {
+		return string.compareTo(_string);
+	}
+
+	/*
+	 * new var.compareTo(new Var)
+	 * 
+	 */
+	@Benchmark
+	public int newNewString() {
+		return new String(string.toCharArray()).compareTo(new String(_string.toCharArray()));
+	}
+
+	/*
+	 * const.compareTo(Const)
+	 * 
+	 */
+	@Benchmark
+	public int constConstFast() {
+		return FAST_STRING.compareTo(_FAST_STRING);
+	}
+
+	/*
+	 * var.compareTo(Var)
+	 * 
+	 */
+	@Benchmark
+	public int varVarFast() {
+		return fastString.compareTo(_fastString);
+	}
+
+	/*
+	 * new var.compareTo(new Var)
+	 * 
+	 */
+	@Benchmark
+	public int newNewFast() {
+		return new FastString(fastString.toCharArray()).compareTo(new FastString(_fastString.toCharArray()));
+	}
+
+	/*
+	 * const.compareToIgnoreCase(Const)
+	 * 
+	 */
+	@Benchmark
+	public int constConstStringIgnoreCase() {
+		return STRING.compareToIgnoreCase(_STRING);
+	}
+
+	/*
+	 * var.compareToIgnoreCase(Var)
+	 * 
+	 */
+	@Benchmark
+	public int varVarStringIgnoreCase() {
+		return string.compareToIgnoreCase(_string);
+	}
+
+	/*
+	 * new var.compareToIgnoreCase(new Var)
+	 * 
+	 */
+	@Benchmark
+	public int newNewStringIgnoreCase() {
+		return new String(string.toCharArray()).compareToIgnoreCase(new String(_string.toCharArray()));
+	}
+
+	/*
+	 * const.compareToIgnoreCase(Const)
+	 * 
+	 */
+	@Benchmark
+	public int constConstFastIgnoreCase() {
+		return FAST_STRING.compareToIgnoreCase(_FAST_STRING);
+	}
+
+	/*
+	 * var.compareToIgnoreCase(Var)
+	 * 
+	 */
+	@Benchmark
+	public int varVarFastIgnoreCase() {
+		return fastString.compareToIgnoreCase(_fastString);
+	}
+
+	/*
+	 * new var.compareToIgnoreCase(new Var)
+	 * 
+	 */
+	@Benchmark
+	public int newNewFastIgnoreCase() {
+		return new FastString(fastString.toCharArray())
+				.compareToIgnoreCase(new FastString(_fastString.toCharArray()));
+	}
+
+	/*
+	 * Arrays.sort(copy, String.CASE_INSENSITIVE_ORDER)
+	 * 
+	 */
+	@Benchmark
+	public String[] sortStringIgnoreCase() {
+		String[] copy = strings.clone();
+		Arrays.sort(copy, String.CASE_INSENSITIVE_ORDER);
+		return copy;
+	}
+
+	/*
+	 * Arrays.sort(copy, FastString.CASE_INSENSITIVE_ORDER)
+	 * 
+	 */
+	@Benchmark
+	public FastString[] sortFastIgnoreCase() {
+		FastString[] copy = fastStrings.clone();
+		Arrays.sort(copy, FastString.CASE_INSENSITIVE_ORDER);
+		return copy;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(StringCompareToBenchmark.class.getSimpleName()).forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -17,12 +17,19 @@
  */
 package su.tweak.openjdk;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -33,9 +40,25 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 public class StringEqualsIgnoreCaseBenchmark {
 
 	private static final String SELF_TEST_MESSAGE = "%s: \"%s\".equalsIgnoreCase(\"%s\") == %s";
+	private static final String ALLOCATION_MESSAGE = "%-40s %10.3f B/op%s";
+
+	/** GCProfiler secondary result of allocated bytes per operation */
+	private static final String ALLOCATION_RATE_NORM = "gc.alloc.rate.norm";
+
+	/**
+	 * Benchmarks with these prefixes must not allocate. The threshold is
+	 * far below the size of any object, it only filters out the profiler
+	 * noise.
+	 */
+	private static final String[] ALLOCATION_FREE = { "constConst", "varVar" };
+	private static final double ALLOCATION_THRESHOLD = 1.0;
 	// private static final String _STRING = "STRING";
 	private static final String _STRING = "String";
 	private static final String STRING = "string";
+	private static final String _UTF16_STRING = "Строка";
+	private static final String UTF16_STRING = "строка";
+	private static final String _HEADER = "CONTENT-TYPE";
+	private static final String HEADER = "Content-Type";
 
 	private static String _string = new String(_STRING.toCharArray());
 	private static String string = new String(STRING.toCharArray());
@@ -46,6 +69,25 @@ public class StringEqualsIgnoreCaseBenchmark {
 	private static FastString _fastString = new FastString(_STRING.toCharArray());
 	private static FastString fastString = new FastString(STRING.toCharArray());
 
+	private static FastString _utf16FastString = new FastString(_UTF16_STRING.toCharArray());
+	private static FastString utf16FastString = new FastString(UTF16_STRING.toCharArray());
+
+	private static String _header = new String(_HEADER.toCharArray());
+	private static String header = new String(HEADER.toCharArray());
+
+	private static FastString _headerFastString = new FastString(_HEADER.toCharArray());
+	private static FastString headerFastString = new FastString(HEADER.toCharArray());
+
+	/*
+	 * Jdk9String is always UTF16 coded, so its Latin1 kernel is called on
+	 * raw bytes.
+	 */
+	private static byte[] _latin1Bytes = _STRING.getBytes(StandardCharsets.ISO_8859_1);
+	private static byte[] latin1Bytes = STRING.getBytes(StandardCharsets.ISO_8859_1);
+
+	private static byte[] _headerLatin1Bytes = _HEADER.getBytes(StandardCharsets.ISO_8859_1);
+	private static byte[] headerLatin1Bytes = HEADER.getBytes(StandardCharsets.ISO_8859_1);
+
 	private static Jdk9String _jdk9String = new Jdk9String(_STRING.toCharArray());
 	private static Jdk9String jdk9String = new Jdk9String(STRING.toCharArray());
 
@@ -106,6 +148,16 @@ public class StringEqualsIgnoreCaseBenchmark {
 		return new FastString(fastString.toCharArray()).equalsIgnoreCase(new FastString(_fastString.toCharArray()));
 	}
 
+	/*
+	 * new var.equalsIgnoreCase(new Var), UTF16 coder
+	 * 
+	 */
+	@Benchmark
+	public boolean newNewFastUTF16() {
+		return new FastString(utf16FastString.toCharArray())
+				.equalsIgnoreCase(new FastString(_utf16FastString.toCharArray()));
+	}
+
 	/*
 	 * const.equalsIgnoreCase(Const)
 	 * 
@@ -133,6 +185,44 @@ public class StringEqualsIgnoreCaseBenchmark {
 		return new Jdk9String(jdk9String.toCharArray()).equalsIgnoreCase(new Jdk9String(_jdk9String.toCharArray()));
 	}
 
+	/*
+	 * var.regionMatches(true, 0, Var, 0, length), JDK 9 Latin1 kernel
+	 * 
+	 */
+	@Benchmark
+	public boolean varVarJdk9Latin1() {
+		return Jdk9StringLatin1.regionMatchesCI(latin1Bytes, 0, _latin1Bytes, 0, latin1Bytes.length);
+	}
+
+	/*
+	 * var.equalsIgnoreCase(Var), "Content-Type" header name
+	 * 
+	 */
+	@Benchmark
+	public boolean headerString() {
+		return header.equalsIgnoreCase(_header);
+	}
+
+	/*
+	 * var.equalsIgnoreCase(Var), "Content-Type" header name
+	 * 
+	 */
+	@Benchmark
+	public boolean headerFast() {
+		return headerFastString.equalsIgnoreCase(_headerFastString);
+	}
+
+	/*
+	 * var.regionMatches(true, 0, Var, 0, length), "Content-Type" header
+	 * name, JDK 9 Latin1 kernel
+	 * 
+	 */
+	@Benchmark
+	public boolean headerJdk9Latin1() {
+		return Jdk9StringLatin1.regionMatchesCI(headerLatin1Bytes, 0, _headerLatin1Bytes, 0,
+				headerLatin1Bytes.length);
+	}
+
 	/*
 	 * new var.equalsIgnoreCase(new Var)
 	 * 
@@ -151,6 +241,16 @@ public class StringEqualsIgnoreCaseBenchmark {
 		return (new FastString(fastString.toCharArray())).length() + (new FastString(_fastString.toCharArray())).length();
 	}
 
+	/*
+	 * new var.equalsIgnoreCase(new Var), UTF16 coder
+	 * 
+	 */
+	@Benchmark
+	public int initNewFastUTF16() {
+		return (new FastString(utf16FastString.toCharArray())).length()
+				+ (new FastString(_utf16FastString.toCharArray())).length();
+	}
+
 	/*
 	 * new var.equalsIgnoreCase(new Var)
 	 * 
@@ -165,18 +265,64 @@ public class StringEqualsIgnoreCaseBenchmark {
 	 */
 	public static void main(String[] args) throws RunnerException {
 		Options opt = new OptionsBuilder().include(StringEqualsIgnoreCaseBenchmark.class.getSimpleName()).forks(1)
-				.build();
+				.addProfiler(GCProfiler.class).build();
+
+		Collection<RunResult> results = new Runner(opt).run();
 
-		new Runner(opt).run();
+		System.out.println("------------------------------------------------------------------------");
+		System.out.println("Allocation:");
+		List<String> allocating = new ArrayList<>();
+		for (RunResult result : results) {
+			String benchmark = result.getPrimaryResult().getLabel();
+			double bytes = allocationRateNorm(result);
+			boolean fail = isAllocationFree(benchmark) && !(bytes < ALLOCATION_THRESHOLD);
+			if (fail) {
+				allocating.add(benchmark);
+			}
+			System.out.println(String.format(ALLOCATION_MESSAGE, benchmark, bytes, fail ? " ALLOCATES" : ""));
+		}
 
 		System.out.println("------------------------------------------------------------------------");
 		System.out.println("Self test:");
 		System.out.println(String.format(SELF_TEST_MESSAGE, "String", STRING, _STRING,
-				new Boolean(STRING.equalsIgnoreCase(_STRING))));
-		System.out.println(String.format(SELF_TEST_MESSAGE, "FastString", STRING, _STRING, new Boolean(
+				Boolean.valueOf(STRING.equalsIgnoreCase(_STRING))));
+		System.out.println(String.format(SELF_TEST_MESSAGE, "FastString", STRING, _STRING, Boolean.valueOf(
 				new FastString(fastString.toCharArray()).equalsIgnoreCase(new FastString(_fastString.toCharArray())))));
-		System.out.println(String.format(SELF_TEST_MESSAGE, "Jdk9String", STRING, _STRING, new Boolean(
+		System.out.println(String.format(SELF_TEST_MESSAGE, "FastString", UTF16_STRING, _UTF16_STRING,
+				Boolean.valueOf(new FastString(utf16FastString.toCharArray())
+						.equalsIgnoreCase(new FastString(_utf16FastString.toCharArray())))));
+		System.out.println(String.format(SELF_TEST_MESSAGE, "Jdk9String", STRING, _STRING, Boolean.valueOf(
 				new Jdk9String(jdk9String.toCharArray()).equalsIgnoreCase(new Jdk9String(_jdk9String.toCharArray())))));
+
+		if (!allocating.isEmpty()) {
+			throw new RunnerException("Allocation-free benchmarks allocate: " + allocating);
+		}
+	}
+
+	private static boolean isAllocationFree(String benchmark) {
+		for (String prefix : ALLOCATION_FREE) {
+			if (benchmark.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return allocated bytes per operation or NaN if the GC profiler
+	 *         reported nothing
+	 */
+	private static double allocationRateNorm(RunResult result) {
+		// JMH 1.12 declares the map with the raw Result type, so the entries
+		// cannot be typed; the values are read through Result<?> instead
+		for (String label : result.getSecondaryResults().keySet()) {
+			// JMH prefixes the profiler labels, e.g. "\u00b7gc.alloc.rate.norm"
+			if (label.endsWith(ALLOCATION_RATE_NORM)) {
+				Result<?> allocation = result.getSecondaryResults().get(label);
+				return allocation.getScore();
+			}
+		}
+		return Double.NaN;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,242 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * equalsIgnoreCase(...) replayed over a newline-delimited UTF-8 corpus.
+ *
+ * Adjacent lines rarely have the same length, so comparing them would
+ * measure the length check only. Instead every line is paired with the
+ * next line of the same length, and a share of the lines ({@code equal}
+ * percent, and every line whose length is unique) with a copy of itself in
+ * swapped case, so every comparison reaches the case folding kernels. One
+ * operation is a pass over all the pairs.
+ *
+ * The corpus file is mapped in windows and the lines are decoded straight
+ * from the mapped buffers in the setup, so parsing is not measured. The
+ * generated corpora are in test/corpus, other files (e.g. anonymized
+ * production dumps of any size) are given with {@code -p corpus=<path>}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StringEqualsIgnoreCaseCorpusBenchmark {
+
+	/** Largest window of the file which is mapped at once */
+	static final int WINDOW = Integer.MAX_VALUE;
+
+	@Param({ "test/corpus/http-headers.txt", "test/corpus/sql-identifiers.txt", "test/corpus/user-names.txt" })
+	public String corpus;
+
+	/** Percentage of the pairs which are equal ignoring case */
+	@Param({ "10" })
+	public int equal;
+
+	/** Lines, then the swapped case copies of the lines */
+	private String[] strings;
+
+	private FastString[] fastStrings;
+
+	private Jdk9String[] jdk9Strings;
+
+	/** Indexes of the left and the right string of each pair */
+	private int[] left;
+	private int[] right;
+
+	@Setup
+	public void setup() throws IOException {
+		List<char[]> lines = readLines(corpus, WINDOW);
+		int size = lines.size();
+		strings = new String[size * 2];
+		fastStrings = new FastString[size * 2];
+		jdk9Strings = new Jdk9String[size * 2];
+		for (int i = 0; i < size; i++) {
+			char[] line = lines.get(i);
+			char[] swapped = swapCase(line);
+			strings[i] = new String(line);
+			strings[size + i] = new String(swapped);
+			fastStrings[i] = new FastString(line);
+			fastStrings[size + i] = new FastString(swapped);
+			jdk9Strings[i] = new Jdk9String(line);
+			jdk9Strings[size + i] = new Jdk9String(swapped);
+		}
+		pairs(lines, size);
+	}
+
+	private void pairs(List<char[]> lines, int size) {
+		Map<Integer, List<Integer>> buckets = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			buckets.computeIfAbsent(lines.get(i).length, k -> new ArrayList<>()).add(i);
+		}
+		Random random = new Random(12);
+		left = new int[size];
+		right = new int[size];
+		int p = 0;
+		for (List<Integer> bucket : buckets.values()) {
+			int n = bucket.size();
+			for (int k = 0; k < n; k++) {
+				int i = bucket.get(k);
+				left[p] = i;
+				right[p++] = (n == 1 || random.nextInt(100) < equal) ? size + i : bucket.get((k + 1) % n);
+			}
+		}
+	}
+
+	private static char[] swapCase(char[] line) {
+		char[] swapped = new char[line.length];
+		for (int i = 0; i < line.length; i++) {
+			char c = line[i];
+			swapped[i] = Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c);
+		}
+		return swapped;
+	}
+
+	/**
+	 * Decodes the lines of a UTF-8 file, a trailing '\r' is dropped. The
+	 * file is mapped in windows of at most {@code window} bytes, a window
+	 * ends after its last complete line and the next one starts with the
+	 * line which was cut. Only the decoded lines are copied, the file
+	 * content is not.
+	 *
+	 * @throws IOException
+	 *             if a line is longer than a window
+	 */
+	static List<char[]> readLines(String path, int window) throws IOException {
+		List<char[]> lines = new ArrayList<>();
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			while (position < size) {
+				int length = (int) Math.min(window, size - position);
+				boolean last = position + length == size;
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				int start = 0;
+				for (int i = 0; i < length || (last && i == length); i++) {
+					if (i < length && buffer.get(i) != '\n') {
+						continue;
+					}
+					addLine(lines, decoder, buffer, start, i);
+					start = i + 1;
+				}
+				if (!last && start == 0) {
+					throw new IOException("Line at " + position + " is longer than " + window + " bytes: " + path);
+				}
+				position += last ? length : start;
+			}
+		}
+		return lines;
+	}
+
+	private static void addLine(List<char[]> lines, CharsetDecoder decoder, ByteBuffer buffer, int start, int end)
+			throws IOException {
+		if (end > start && buffer.get(end - 1) == '\r') {
+			end--;
+		}
+		if (end > start) {
+			ByteBuffer line = buffer.duplicate();
+			line.limit(end).position(start);
+			CharBuffer chars = decoder.decode(line);
+			char[] value = new char[chars.remaining()];
+			chars.get(value);
+			lines.add(value);
+		}
+	}
+
+	@Benchmark
+	public int string() {
+		String[] a = strings;
+		int[] l = left;
+		int[] r = right;
+		int matches = 0;
+		for (int p = 0; p < l.length; p++) {
+			if (a[l[p]].equalsIgnoreCase(a[r[p]])) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int fast() {
+		FastString[] a = fastStrings;
+		int[] l = left;
+		int[] r = right;
+		int matches = 0;
+		for (int p = 0; p < l.length; p++) {
+			if (a[l[p]].equalsIgnoreCase(a[r[p]])) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int jdk9() {
+		Jdk9String[] a = jdk9Strings;
+		int[] l = left;
+		int[] r = right;
+		int matches = 0;
+		for (int p = 0; p < l.length; p++) {
+			if (a[l[p]].equalsIgnoreCase(a[r[p]])) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(StringEqualsIgnoreCaseCorpusBenchmark.class.getSimpleName())
+				.forks(1).build();
+
+		new Runner(opt).run();
+	}
+
+}
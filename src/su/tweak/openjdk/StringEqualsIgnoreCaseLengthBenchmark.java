@@ -0,0 +1,125 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * equalsIgnoreCase(...) of equal strings which differ in case, by length.
+ *
+ * The UTF16 strings are ASCII except the last char, so the word-at-a-time
+ * kernels take the ASCII path for all words but the last one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class StringEqualsIgnoreCaseLengthBenchmark {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789-_.";
+
+	@Param({ "6", "32", "64", "128", "256" })
+	public int length;
+
+	private String _string;
+	private String string;
+
+	private FastString _fastString;
+	private FastString fastString;
+
+	private FastString _utf16FastString;
+	private FastString utf16FastString;
+
+	private Jdk9String _jdk9String;
+	private Jdk9String jdk9String;
+
+	private byte[] _latin1Bytes;
+	private byte[] latin1Bytes;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(i % ALPHABET.length()));
+		}
+		string = sb.toString();
+		_string = string.toUpperCase();
+
+		fastString = new FastString(string.toCharArray());
+		_fastString = new FastString(_string.toCharArray());
+
+		utf16FastString = new FastString((string.substring(1) + "ж").toCharArray());
+		_utf16FastString = new FastString((_string.substring(1) + "Ж").toCharArray());
+
+		jdk9String = new Jdk9String(string.toCharArray());
+		_jdk9String = new Jdk9String(_string.toCharArray());
+
+		latin1Bytes = string.getBytes(StandardCharsets.ISO_8859_1);
+		_latin1Bytes = _string.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	@Benchmark
+	public boolean string() {
+		return string.equalsIgnoreCase(_string);
+	}
+
+	@Benchmark
+	public boolean fast() {
+		return fastString.equalsIgnoreCase(_fastString);
+	}
+
+	@Benchmark
+	public boolean fastUTF16() {
+		return utf16FastString.equalsIgnoreCase(_utf16FastString);
+	}
+
+	@Benchmark
+	public boolean jdk9() {
+		return jdk9String.equalsIgnoreCase(_jdk9String);
+	}
+
+	/*
+	 * Jdk9String is always UTF16 coded, so its Latin1 kernel is called on
+	 * raw bytes.
+	 */
+	@Benchmark
+	public boolean jdk9Latin1() {
+		return Jdk9StringLatin1.regionMatchesCI(latin1Bytes, 0, _latin1Bytes, 0, latin1Bytes.length);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(StringEqualsIgnoreCaseLengthBenchmark.class.getSimpleName())
+				.forks(1).build();
+
+		new Runner(opt).run();
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Multi-threaded companion of {@link StringEqualsIgnoreCaseBenchmark}.
+ *
+ * <ul>
+ * <li>shared* - all threads compare the same read-only strings
+ * <li>thread* - every thread compares its own strings
+ * <li>newNew* - every thread allocates the strings, run with -prof gc to
+ * see the allocation rate
+ * <li>hashInit group - one thread publishes new strings, the other threads
+ * race to initialize their cached hash codes
+ * </ul>
+ *
+ * main() runs the suite with 1, 2, 4, ... threads up to the number of
+ * available processors, or with the thread counts given as arguments.
+ * Compare the throughput per thread count to see how it scales.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(Threads.MAX)
+public class StringEqualsIgnoreCaseThreadsBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Shared {
+
+		public String _string;
+		public String string;
+
+		public FastString _fastString;
+		public FastString fastString;
+
+		public Jdk9String _jdk9String;
+		public Jdk9String jdk9String;
+
+		@Setup
+		public void setup() {
+			string = new String("string");
+			_string = new String("String");
+			fastString = new FastString(string.toCharArray());
+			_fastString = new FastString(_string.toCharArray());
+			jdk9String = new Jdk9String(string.toCharArray());
+			_jdk9String = new Jdk9String(_string.toCharArray());
+		}
+
+	}
+
+	/*
+	 * Same strings as Shared, but allocated by every thread, so they are
+	 * not shared between the cores.
+	 */
+	@State(Scope.Thread)
+	public static class PerThread extends Shared {
+	}
+
+	/*
+	 * The strings are replaced by the publishing thread with new ones, so
+	 * their hash codes are not cached yet.
+	 */
+	@State(Scope.Group)
+	public static class Published {
+
+		public volatile String string = new String("Content-Type");
+
+		public volatile FastString fastString = new FastString("Content-Type".toCharArray());
+
+	}
+
+	@Benchmark
+	public boolean sharedString(Shared s) {
+		return s.string.equalsIgnoreCase(s._string);
+	}
+
+	@Benchmark
+	public boolean sharedFast(Shared s) {
+		return s.fastString.equalsIgnoreCase(s._fastString);
+	}
+
+	@Benchmark
+	public boolean sharedJdk9(Shared s) {
+		return s.jdk9String.equalsIgnoreCase(s._jdk9String);
+	}
+
+	@Benchmark
+	public boolean threadString(PerThread s) {
+		return s.string.equalsIgnoreCase(s._string);
+	}
+
+	@Benchmark
+	public boolean threadFast(PerThread s) {
+		return s.fastString.equalsIgnoreCase(s._fastString);
+	}
+
+	@Benchmark
+	public boolean threadJdk9(PerThread s) {
+		return s.jdk9String.equalsIgnoreCase(s._jdk9String);
+	}
+
+	@Benchmark
+	public boolean newNewString() {
+		return new String("string").equalsIgnoreCase(new String("String"));
+	}
+
+	@Benchmark
+	public boolean newNewFast() {
+		return new FastString("string".toCharArray()).equalsIgnoreCase(new FastString("String".toCharArray()));
+	}
+
+	@Benchmark
+	public boolean newNewJdk9() {
+		return new Jdk9String("string".toCharArray()).equalsIgnoreCase(new Jdk9String("String".toCharArray()));
+	}
+
+	@Benchmark
+	@Group("hashInitString")
+	@GroupThreads(1)
+	public void publishString(Published p) {
+		p.string = new String("Content-Type");
+	}
+
+	@Benchmark
+	@Group("hashInitString")
+	@GroupThreads(3)
+	public int hashString(Published p) {
+		return p.string.hashCode();
+	}
+
+	@Benchmark
+	@Group("hashInitFast")
+	@GroupThreads(1)
+	public void publishFast(Published p) {
+		p.fastString = new FastString("Content-Type".toCharArray());
+	}
+
+	@Benchmark
+	@Group("hashInitFast")
+	@GroupThreads(3)
+	public int hashFast(Published p) {
+		FastString s = p.fastString;
+		return s.hashCode() + s.hashCodeIgnoreCase();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		int[] threads;
+		if (args.length > 0) {
+			threads = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				threads[i] = Integer.parseInt(args[i]);
+			}
+		} else {
+			int max = Runtime.getRuntime().availableProcessors();
+			int count = 1;
+			while ((1 << count) <= max) {
+				count++;
+			}
+			threads = new int[count];
+			for (int i = 0; i < count; i++) {
+				threads[i] = 1 << i;
+			}
+		}
+
+		for (int t : threads) {
+			Options opt = new OptionsBuilder().include(StringEqualsIgnoreCaseThreadsBenchmark.class.getSimpleName())
+					.forks(1).threads(t).build();
+
+			new Runner(opt).run();
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Command line tool for the JMH result baselines. It works on local files
+ * only.
+ *
+ * <pre>
+ * save &lt;name&gt; &lt;results.json&gt;     saves results as a baseline
+ * compare &lt;name&gt; &lt;results.json&gt;  compares results with a baseline
+ * list                             lists the baselines
+ * </pre>
+ *
+ * The results are written by JMH with {@code -rf json -rff results.json}.
+ * The baselines directory is "baselines" or the "baselines.dir" system
+ * property. compare exits with status 1 if any benchmark is slower.
+ */
+public final class BaselineTool {
+
+	private static final String ROW = "%-10s %8s  %14s %-18s %14s %-18s %s";
+	private static final String USAGE = "Usage: BaselineTool save <name> <results.json>"
+			+ " | compare <name> <results.json> | list";
+
+	private BaselineTool() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		Baselines baselines = new Baselines(Paths.get(System.getProperty("baselines.dir", "baselines")));
+		String command = (args.length > 0) ? args[0] : "";
+		switch (command) {
+		case "save":
+			checkArgs(args, 3);
+			System.out.println("Saved " + baselines.save(args[1], Paths.get(args[2])));
+			break;
+		case "compare":
+			checkArgs(args, 3);
+			List<Comparison> comparisons = Comparison.compare(baselines.load(args[1]),
+					BenchmarkResult.read(Paths.get(args[2])));
+			if (print(comparisons, System.out)) {
+				System.exit(1);
+			}
+			break;
+		case "list":
+			for (String name : baselines.list()) {
+				System.out.println(name);
+			}
+			break;
+		default:
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+	}
+
+	private static void checkArgs(String[] args, int count) {
+		if (args.length != count) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+	}
+
+	/**
+	 * Prints a verdict per benchmark and the totals.
+	 *
+	 * @return true if any benchmark is slower
+	 */
+	static boolean print(List<Comparison> comparisons, PrintStream out) {
+		int[] counts = new int[Verdict.values().length];
+		out.println(String.format(ROW, "Verdict", "Change", "Baseline", "", "Current", "", "Benchmark"));
+		for (Comparison c : comparisons) {
+			counts[c.verdict().ordinal()]++;
+			double change = c.change();
+			out.println(String.format(ROW, c.verdict(), Double.isNaN(change) ? "" : String.format("%+.1f%%", change),
+					score(c.baseline()), error(c.baseline()), score(c.current()), error(c.current()), c.key()));
+		}
+		StringBuilder totals = new StringBuilder();
+		for (Verdict v : Verdict.values()) {
+			totals.append(v).append(": ").append(counts[v.ordinal()]).append("  ");
+		}
+		out.println(totals.toString().trim());
+		return counts[Verdict.SLOWER.ordinal()] > 0;
+	}
+
+	private static String score(BenchmarkResult r) {
+		return (r == null) ? "-" : String.format("%.3f", r.score());
+	}
+
+	private static String error(BenchmarkResult r) {
+		return (r == null) ? "" : String.format("± %.3f %s", r.scoreError(), r.unit());
+	}
+
+}
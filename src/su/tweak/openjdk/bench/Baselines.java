@@ -0,0 +1,85 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk.bench;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Named baselines, which are JMH JSON result files kept in a directory as
+ * {@code <name>.json}.
+ */
+public final class Baselines {
+
+	private static final String SUFFIX = ".json";
+
+	private final Path directory;
+
+	public Baselines(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Saves a result file as the baseline, replacing the baseline of the same
+	 * name. The file is parsed first, so a broken file is not saved.
+	 */
+	public Path save(String name, Path results) throws IOException {
+		BenchmarkResult.read(results);
+		Files.createDirectories(directory);
+		return Files.copy(results, path(name), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public List<BenchmarkResult> load(String name) throws IOException {
+		Path path = path(name);
+		if (!Files.isRegularFile(path)) {
+			throw new IOException("No baseline " + name + " in " + directory);
+		}
+		return BenchmarkResult.read(path);
+	}
+
+	/**
+	 * @return sorted names of the saved baselines
+	 */
+	public List<String> list() throws IOException {
+		List<String> names = new ArrayList<>();
+		if (Files.isDirectory(directory)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+				for (Path path : stream) {
+					String file = path.getFileName().toString();
+					names.add(file.substring(0, file.length() - SUFFIX.length()));
+				}
+			}
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	private Path path(String name) {
+		if (name.isEmpty() || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+			throw new IllegalArgumentException("Bad baseline name: " + name);
+		}
+		return directory.resolve(name + SUFFIX);
+	}
+
+}
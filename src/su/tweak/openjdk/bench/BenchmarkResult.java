@@ -0,0 +1,139 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Primary metric of one benchmark (with its parameters) from a JMH JSON
+ * result file.
+ */
+public final class BenchmarkResult {
+
+	private final String benchmark;
+	private final String mode;
+	private final SortedMap<String, String> params;
+	private final double score;
+	private final double scoreError;
+	private final String unit;
+
+	public BenchmarkResult(String benchmark, String mode, Map<String, String> params, double score,
+			double scoreError, String unit) {
+		this.benchmark = benchmark;
+		this.mode = mode;
+		this.params = Collections.unmodifiableSortedMap(new TreeMap<>(params));
+		this.score = score;
+		this.scoreError = scoreError;
+		this.unit = unit;
+	}
+
+	/**
+	 * Reads a JMH result file written with {@code -rf json}.
+	 */
+	public static List<BenchmarkResult> read(Path path) throws IOException {
+		return parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+	}
+
+	@SuppressWarnings("unchecked")
+	static List<BenchmarkResult> parse(String json) {
+		List<BenchmarkResult> results = new ArrayList<>();
+		for (Object element : (List<Object>) JsonParser.parse(json)) {
+			Map<String, Object> run = (Map<String, Object>) element;
+			Map<String, String> params = new TreeMap<>();
+			Object runParams = run.get("params");
+			if (runParams != null) {
+				for (Map.Entry<String, Object> e : ((Map<String, Object>) runParams).entrySet()) {
+					params.put(e.getKey(), String.valueOf(e.getValue()));
+				}
+			}
+			Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+			results.add(new BenchmarkResult((String) run.get("benchmark"), (String) run.get("mode"), params,
+					toDouble(metric.get("score")), toDouble(metric.get("scoreError")),
+					(String) metric.get("scoreUnit")));
+		}
+		return results;
+	}
+
+	/*
+	 * JMH writes "NaN" as a string, e.g. the error of a single iteration
+	 */
+	private static double toDouble(Object value) {
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		return (value == null) ? Double.NaN : Double.parseDouble(value.toString());
+	}
+
+	/**
+	 * @return benchmark name with its parameters, which identifies the
+	 *         result within a run
+	 */
+	public String key() {
+		return params.isEmpty() ? benchmark : benchmark + params;
+	}
+
+	public String benchmark() {
+		return benchmark;
+	}
+
+	public String mode() {
+		return mode;
+	}
+
+	public SortedMap<String, String> params() {
+		return params;
+	}
+
+	public double score() {
+		return score;
+	}
+
+	/**
+	 * @return half width of the confidence interval, NaN if JMH could not
+	 *         estimate it
+	 */
+	public double scoreError() {
+		return scoreError;
+	}
+
+	public String unit() {
+		return unit;
+	}
+
+	/**
+	 * @return true if a higher score is better (throughput mode)
+	 */
+	public boolean higherIsBetter() {
+		return "thrpt".equals(mode);
+	}
+
+	@Override
+	public String toString() {
+		return key() + " " + score + " ± " + scoreError + " " + unit;
+	}
+
+}
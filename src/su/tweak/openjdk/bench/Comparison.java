@@ -0,0 +1,119 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a benchmark result with its baseline.
+ *
+ * The scores are different if their intervals [score - error, score +
+ * error] do not overlap. Results without an error, which JMH cannot
+ * estimate from a single iteration, are always {@link Verdict#UNCHANGED}:
+ * a single measurement says nothing about the noise. Results of different
+ * modes or units are not compared, they are {@link Verdict#MISSING}.
+ */
+public final class Comparison {
+
+	private final String key;
+	private final BenchmarkResult baseline;
+	private final BenchmarkResult current;
+	private final Verdict verdict;
+
+	Comparison(String key, BenchmarkResult baseline, BenchmarkResult current) {
+		this.key = key;
+		this.baseline = baseline;
+		this.current = current;
+		this.verdict = verdict(baseline, current);
+	}
+
+	/**
+	 * Pairs the results by {@link BenchmarkResult#key()}, in the order of
+	 * the new run followed by those only found in the baseline.
+	 */
+	public static List<Comparison> compare(List<BenchmarkResult> baseline, List<BenchmarkResult> current) {
+		Map<String, BenchmarkResult> base = new LinkedHashMap<>();
+		for (BenchmarkResult r : baseline) {
+			base.put(r.key(), r);
+		}
+		List<Comparison> comparisons = new ArrayList<>();
+		for (BenchmarkResult r : current) {
+			comparisons.add(new Comparison(r.key(), base.remove(r.key()), r));
+		}
+		for (BenchmarkResult r : base.values()) {
+			comparisons.add(new Comparison(r.key(), r, null));
+		}
+		return comparisons;
+	}
+
+	static Verdict verdict(BenchmarkResult baseline, BenchmarkResult current) {
+		if (baseline == null || current == null || !baseline.mode().equals(current.mode())
+				|| !baseline.unit().equals(current.unit())) {
+			return Verdict.MISSING;
+		}
+		double baseError = Math.abs(baseline.scoreError());
+		double currentError = Math.abs(current.scoreError());
+		if (Double.isNaN(baseError) || Double.isNaN(currentError)) {
+			return Verdict.UNCHANGED;
+		}
+		if (current.score() - currentError > baseline.score() + baseError) {
+			return current.higherIsBetter() ? Verdict.FASTER : Verdict.SLOWER;
+		}
+		if (current.score() + currentError < baseline.score() - baseError) {
+			return current.higherIsBetter() ? Verdict.SLOWER : Verdict.FASTER;
+		}
+		return Verdict.UNCHANGED;
+	}
+
+	public String key() {
+		return key;
+	}
+
+	/**
+	 * @return baseline result or null
+	 */
+	public BenchmarkResult baseline() {
+		return baseline;
+	}
+
+	/**
+	 * @return new result or null
+	 */
+	public BenchmarkResult current() {
+		return current;
+	}
+
+	public Verdict verdict() {
+		return verdict;
+	}
+
+	/**
+	 * @return relative change of the score in percent, NaN if a result is
+	 *         missing
+	 */
+	public double change() {
+		if (baseline == null || current == null || baseline.score() == 0) {
+			return Double.NaN;
+		}
+		return (current.score() - baseline.score()) * 100 / baseline.score();
+	}
+
+}
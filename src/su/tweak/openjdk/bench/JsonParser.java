@@ -0,0 +1,210 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON parser for JMH result files, so the baselines need no
+ * dependency besides JMH.
+ *
+ * Objects are parsed to {@link Map}, arrays to {@link List}, numbers to
+ * {@link Double}, and the literals to {@link Boolean} or {@code null}.
+ */
+final class JsonParser {
+
+	private final String json;
+	private int pos;
+
+	private JsonParser(String json) {
+		this.json = json;
+	}
+
+	static Object parse(String json) {
+		JsonParser parser = new JsonParser(json);
+		Object value = parser.value();
+		parser.skipWhitespace();
+		if (parser.pos != json.length()) {
+			throw parser.error("Unexpected trailing content");
+		}
+		return value;
+	}
+
+	private Object value() {
+		skipWhitespace();
+		if (pos >= json.length()) {
+			throw error("Unexpected end of input");
+		}
+		char c = json.charAt(pos);
+		switch (c) {
+		case '{':
+			return object();
+		case '[':
+			return array();
+		case '"':
+			return string();
+		case 't':
+			return literal("true", Boolean.TRUE);
+		case 'f':
+			return literal("false", Boolean.FALSE);
+		case 'n':
+			return literal("null", null);
+		default:
+			return number();
+		}
+	}
+
+	private Map<String, Object> object() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		pos++;
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return map;
+		}
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"') {
+				throw error("Expected string key");
+			}
+			String key = string();
+			skipWhitespace();
+			expect(':');
+			map.put(key, value());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect('}');
+				return map;
+			}
+		}
+	}
+
+	private List<Object> array() {
+		List<Object> list = new ArrayList<>();
+		pos++;
+		skipWhitespace();
+		if (peek() == ']') {
+			pos++;
+			return list;
+		}
+		while (true) {
+			list.add(value());
+			skipWhitespace();
+			if (peek() == ',') {
+				pos++;
+			} else {
+				expect(']');
+				return list;
+			}
+		}
+	}
+
+	private String string() {
+		StringBuilder sb = new StringBuilder();
+		pos++;
+		while (true) {
+			if (pos >= json.length()) {
+				throw error("Unterminated string");
+			}
+			char c = json.charAt(pos++);
+			if (c == '"') {
+				return sb.toString();
+			}
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			if (pos >= json.length()) {
+				throw error("Unterminated escape");
+			}
+			c = json.charAt(pos++);
+			switch (c) {
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'u':
+				if (pos + 4 > json.length()) {
+					throw error("Bad unicode escape");
+				}
+				sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+				pos += 4;
+				break;
+			default:
+				sb.append(c);
+			}
+		}
+	}
+
+	private Object literal(String text, Object value) {
+		if (!json.startsWith(text, pos)) {
+			throw error("Unexpected literal");
+		}
+		pos += text.length();
+		return value;
+	}
+
+	private Double number() {
+		int start = pos;
+		while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+			pos++;
+		}
+		if (start == pos) {
+			throw error("Unexpected character");
+		}
+		return Double.valueOf(json.substring(start, pos));
+	}
+
+	private char peek() {
+		return (pos < json.length()) ? json.charAt(pos) : 0;
+	}
+
+	private void expect(char c) {
+		if (peek() != c) {
+			throw error("Expected '" + c + "'");
+		}
+		pos++;
+	}
+
+	private void skipWhitespace() {
+		while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at " + pos);
+	}
+
+}
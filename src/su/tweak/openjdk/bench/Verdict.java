@@ -0,0 +1,40 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk.bench;
+
+/**
+ * Result of comparing a benchmark score with its baseline.
+ */
+public enum Verdict {
+
+	/** The error intervals do not overlap and the new score is better */
+	FASTER,
+
+	/** The error intervals do not overlap and the new score is worse */
+	SLOWER,
+
+	/** The error intervals overlap */
+	UNCHANGED,
+
+	/**
+	 * The benchmark is missing in the baseline or in the new run, or the
+	 * two were measured in different modes or units
+	 */
+	MISSING
+
+}
@@ -0,0 +1,63 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import org.junit.Test;
+
+public class FastStringArenaTest {
+
+	private static final String[] STRINGS = { "", "a", "Content-Type", "Строка", "xÿ", "µ", "stringЖ", "ACCEPT",
+			"Заголовок-Запроса", "àé" };
+
+	@Test
+	public void arenaTest() {
+		FastStringArena arena = new FastStringArena(1, 1);
+		for (int round = 0; round < 50; round++) {
+			for (String s : STRINGS) {
+				assertEquals(arena.size(), arena.add(fast(s)));
+			}
+		}
+		for (int trim = 0; trim < 2; trim++) {
+			for (int i = 0; i < arena.size(); i++) {
+				String s = STRINGS[i % STRINGS.length];
+				FastString f = fast(s);
+				assertEquals(s.length(), arena.length(i));
+				assertEquals(s, arena.get(i).toString());
+				assertEquals(s, arena.view(i).toString());
+				assertEquals(s, f.hashCodeIgnoreCase(), arena.hashIgnoreCase(i));
+				for (String t : STRINGS) {
+					assertEquals(s + "/" + t, s.equalsIgnoreCase(t), arena.equalsIgnoreCase(i, fast(t)));
+				}
+				assertTrue(s, arena.equalsIgnoreCase(i, fast(s.toUpperCase())));
+				assertFalse(arena.equalsIgnoreCase(i, null));
+			}
+			arena.trimToSize();
+		}
+	}
+
+	@Test(expected = StringIndexOutOfBoundsException.class)
+	public void indexTest() {
+		FastStringArena arena = new FastStringArena();
+		arena.add(fast("a"));
+		arena.hashIgnoreCase(1);
+	}
+
+}
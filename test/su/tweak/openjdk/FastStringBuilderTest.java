@@ -0,0 +1,122 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FastStringBuilderTest {
+
+	private static final String[] PARTS = { "Content-Type", ": ", "text/html", "é", "ÿ", "Ж", "заголовок", "€", "",
+			"\r\n" };
+
+	private static void assertBuilt(String expected, FastStringBuilder sb) {
+		FastString s = sb.toFastString();
+		assertEquals(expected, s.toString());
+		assertEquals(expected.length(), sb.length());
+		// the same coder as the char[] constructor picks
+		assertEquals(expected, fast(expected).coder(), s.coder());
+		assertEquals(expected.hashCode(), s.hashCode());
+	}
+
+	@Test
+	public void appendTest() {
+		Random random = new Random(22);
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder expected = new StringBuilder();
+			FastStringBuilder sb = new FastStringBuilder(random.nextInt(8));
+			for (int j = random.nextInt(10); j > 0; j--) {
+				String part = PARTS[random.nextInt(PARTS.length)];
+				switch (random.nextInt(4)) {
+				case 0:
+					sb.append(part);
+					break;
+				case 1:
+					sb.append(fast(part));
+					break;
+				case 2:
+					for (int k = 0; k < part.length(); k++) {
+						sb.append(part.charAt(k));
+					}
+					break;
+				default:
+					int n = random.nextInt();
+					sb.append(n);
+					part = Integer.toString(n);
+				}
+				expected.append(part);
+				assertBuilt(expected.toString(), sb);
+			}
+		}
+	}
+
+	@Test
+	public void handOverTest() {
+		FastStringBuilder sb = new FastStringBuilder(4);
+		sb.append("head");
+		FastString s = sb.toFastString();
+		assertSame(s.value(), sb.toFastString().value());
+		// the shared buffer is copied, not modified
+		sb.setLength(2);
+		sb.append("ad");
+		sb.setLength(3).append('Ж');
+		assertEquals("head", s.toString());
+		assertEquals("heaЖ", sb.toString());
+		FastString u = sb.toFastString();
+		assertSame(u.value(), sb.toFastString().value());
+		sb.append("!");
+		assertEquals("heaЖ", u.toString());
+		assertEquals("heaЖ!", sb.toString());
+	}
+
+	@Test
+	public void coderTest() {
+		FastStringBuilder sb = new FastStringBuilder().append("abЖ");
+		FastString ab = fast("ab");
+		FastString sub = (FastString) sb.subSequence(0, 2);
+		assertEquals(FastString.LATIN1, sub.coder());
+		assertEquals(ab, sub);
+		assertEquals(FastString.UTF16, ((FastString) sb.subSequence(1, 3)).coder());
+
+		// the non-Latin1 tail is cut off
+		FastString shrunk = sb.setLength(2).toFastString();
+		assertEquals(FastString.LATIN1, shrunk.coder());
+		assertEquals(ab, shrunk);
+		assertEquals("ab!", sb.append('!').toFastString().toString());
+		assertEquals(FastString.LATIN1, sb.toFastString().coder());
+	}
+
+	@Test
+	public void charSequenceTest() {
+		FastStringBuilder sb = new FastStringBuilder().append("abc").append((CharSequence) null).append("Ж", 0, 1);
+		assertEquals("abcnullЖ", sb.toString());
+		assertEquals('Ж', sb.charAt(7));
+		assertEquals("cnu", sb.subSequence(2, 5).toString());
+		assertEquals(0, sb.setLength(0).length());
+	}
+
+	@Test(expected = StringIndexOutOfBoundsException.class)
+	public void charAtTest() {
+		new FastStringBuilder().append("abc").charAt(3);
+	}
+
+}
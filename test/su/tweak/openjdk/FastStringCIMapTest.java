@@ -0,0 +1,68 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class FastStringCIMapTest {
+
+	@Test
+	public void putGetTest() {
+		FastStringCIMap<Integer> map = new FastStringCIMap<>();
+		assertNull(map.put(fast("Content-Type"), 1));
+		assertNull(map.put(fast("Строка"), 2));
+		assertEquals(Integer.valueOf(1), map.get(fast("content-type")));
+		assertEquals(Integer.valueOf(1), map.get(fast("CONTENT-TYPE")));
+		assertEquals(Integer.valueOf(2), map.get(fast("СТРОКА")));
+		assertNull(map.get(fast("Content-Length")));
+		assertEquals(Integer.valueOf(1), map.put(fast("CONTENT-type"), 3));
+		assertEquals(Integer.valueOf(3), map.get(fast("Content-Type")));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	public void removeTest() {
+		FastStringCIMap<Integer> map = new FastStringCIMap<>(0);
+		TreeMap<String, Integer> expected = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = 0; i < 1000; i++) {
+			String key = "Key-" + i;
+			map.put(fast(key), i);
+			expected.put(key, i);
+		}
+		for (int i = 0; i < 1000; i += 3) {
+			String key = "KEY-" + i;
+			assertEquals(expected.remove(key), map.remove(fast(key)));
+		}
+		assertNull(map.remove(fast("key-0")));
+		assertEquals(expected.size(), map.size());
+		for (int i = 0; i < 1000; i++) {
+			String key = "key-" + i;
+			assertEquals(expected.get(key), map.get(fast(key)));
+			assertEquals(expected.containsKey(key), map.containsKey(fast(key)));
+		}
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(fast("key-1")));
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FastStringCodingTest {
+
+	private static final String[] STRINGS = { "", "a", "string", "Content-Type: text/html; charset=utf-8", "àé",
+			"xÿ", "µ", "ascii then àé", "XŸ", "Строка", "stringЖ", "Заголовок-Запроса: Значение", "€", "😀",
+			"a😀b", "ÿ￿ࠀ" };
+
+	private static void assertDecoded(String expected, FastString actual) {
+		assertEquals(expected, actual.toString());
+		assertEquals(expected, fast(expected), actual);
+		// canonical coder: Latin1 whenever every char fits
+		assertEquals(expected, fast(expected).coder(), actual.coder());
+	}
+
+	private static void assertUtf8(byte[] bytes) {
+		String expected = new String(bytes, StandardCharsets.UTF_8);
+		assertDecoded(expected, FastString.fromUtf8(bytes, 0, bytes.length));
+
+		byte[] padded = new byte[bytes.length + 3];
+		System.arraycopy(bytes, 0, padded, 1, bytes.length);
+		assertDecoded(expected, FastString.fromUtf8(padded, 1, bytes.length));
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+		direct.put(padded);
+		assertDecoded(expected, FastString.fromUtf8(direct, 1, bytes.length));
+		assertDecoded(expected, FastString.fromUtf8(ByteBuffer.wrap(padded, 1, bytes.length).slice(), 0, bytes.length));
+	}
+
+	@Test
+	public void fromUtf8Test() {
+		for (String s : STRINGS) {
+			assertUtf8(s.getBytes(StandardCharsets.UTF_8));
+			assertUtf8((s + s + s + s).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void malformedUtf8Test() {
+		int[][] inputs = { { 0x80 }, { 0xc0, 0x80 }, { 0xc1, 0xbf }, { 0xc3 }, { 0xc3, 0x41 }, { 0xe0, 0x80, 0x80 },
+				{ 0xe0, 0xa0 }, { 0xed, 0xa0, 0x80 }, { 0xef, 0xbf }, { 0xf0, 0x80, 0x80, 0x80 }, { 0xf0, 0x9f, 0x98 },
+				{ 0xf4, 0x90, 0x80, 0x80 }, { 0xf5, 0x80 }, { 0xff }, { 0x41, 0xe2, 0x82, 0x41, 0xc3, 0xa9 },
+				{ 0xed, 0xa0 }, { 0xed, 0xbf, 0xbf, 0x41 }, { 0xe0, 0x9f }, { 0xf0, 0x90, 0x41 }, { 0xf4, 0x90 },
+				{ 0xe1, 0x80, 0xc3, 0xa9 } };
+		for (int[] input : inputs) {
+			byte[] bytes = new byte[input.length];
+			for (int i = 0; i < input.length; i++) {
+				bytes[i] = (byte) input[i];
+			}
+			assertUtf8(bytes);
+		}
+	}
+
+	@Test
+	public void randomUtf8Test() {
+		Random random = new Random(19);
+		for (int i = 0; i < 10000; i++) {
+			byte[] bytes = new byte[random.nextInt(40)];
+			random.nextBytes(bytes);
+			// mostly ASCII with some multibyte sequences
+			for (int j = 0; j < bytes.length; j++) {
+				if (random.nextInt(4) != 0) {
+					bytes[j] &= 0x7f;
+				}
+			}
+			assertUtf8(bytes);
+		}
+	}
+
+	@Test
+	public void fromLatin1Test() {
+		for (String s : STRINGS) {
+			byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+			String expected = new String(bytes, StandardCharsets.ISO_8859_1);
+			FastString f = FastString.fromLatin1(bytes, 0, bytes.length);
+			assertEquals(expected, f.toString());
+			assertEquals(FastString.LATIN1, f.coder());
+
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 1);
+			direct.position(1);
+			direct.put(bytes);
+			assertEquals(expected, FastString.fromLatin1(direct, 1, bytes.length).toString());
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void boundsTest() {
+		FastString.fromUtf8(new byte[4], 2, 3);
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class FastStringDirectTest {
+
+	private static final String[] STRINGS = { "", "a", "A", "string", "String", "STRING", "string2", "àé", "ÀÉ",
+			"xÿ", "XŸ", "µ", "Μ", "Строка", "строка", "stringЖ", "STRINGж", "Content-Type: text/html; charset=utf-8",
+			"CONTENT-TYPE: TEXT/HTML; CHARSET=UTF-8", "content-type: text/html; charset=utf-8 ",
+			"Заголовок-Запроса: Значение", "заголовок-запроса: значение" };
+
+	/*
+	 * Wraps the value of the string at an odd offset of a larger direct
+	 * buffer.
+	 */
+	private static FastStringDirect wrap(FastString s) {
+		byte[] value = s.value();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(value.length + 3);
+		buffer.position(1);
+		buffer.put(value);
+		buffer.clear();
+		return (s.coder() == FastString.LATIN1) ? FastStringDirect.latin1(buffer, 1, s.length())
+				: FastStringDirect.utf16(buffer, 1, s.length());
+	}
+
+	@Test
+	public void equalsIgnoreCaseTest() {
+		for (String s1 : STRINGS) {
+			FastString f1 = fast(s1);
+			FastStringDirect d1 = FastStringDirect.copyOf(f1);
+			FastStringDirect w1 = wrap(f1);
+			assertEquals(s1, d1.toString());
+			assertEquals(s1, w1.toString());
+			assertEquals(s1.length(), w1.length());
+			assertEquals(s1, f1.hashCode(), w1.hashCode());
+			assertEquals(s1, f1.hashCodeIgnoreCase(), w1.hashCodeIgnoreCase());
+			assertTrue(s1, w1.contentEquals(f1));
+			assertEquals(d1, w1);
+			assertEquals(d1.hashCode(), w1.hashCode());
+			for (String s2 : STRINGS) {
+				FastString f2 = fast(s2);
+				FastStringDirect w2 = wrap(f2);
+				boolean expected = s1.equalsIgnoreCase(s2);
+				assertEquals(s1 + " vs " + s2, expected, d1.equalsIgnoreCase(f2));
+				assertEquals(s1 + " vs " + s2, expected, w1.equalsIgnoreCase(f2));
+				assertEquals(s1 + " vs " + s2, expected, d1.equalsIgnoreCase(w2));
+				assertEquals(s1 + " vs " + s2, s1.equals(s2), w1.contentEquals(f2));
+				assertEquals(s1 + " vs " + s2, s1.equals(s2), d1.equals(w2));
+			}
+		}
+	}
+
+	@Test
+	public void regionMatchesTest() {
+		FastString line = fast("Content-Type: text/html; charset=utf-8");
+		FastStringDirect direct = wrap(fast("X-CONTENT-TYPE: TEXT/HTML"));
+		assertTrue(direct.regionMatches(true, 2, line, 0, 23));
+		assertFalse(direct.regionMatches(false, 2, line, 0, 23));
+		assertTrue(direct.regionMatches(false, 0, fast("X-C"), 0, 3));
+		assertFalse(direct.regionMatches(true, 2, line, 0, 24));
+		assertFalse(direct.regionMatches(true, -1, line, 0, 1));
+		assertTrue(direct.regionMatches(true, 2, wrap(line), 0, 23));
+		FastStringDirect utf16 = wrap(fast("Заголовок: Content-Type"));
+		assertTrue(utf16.regionMatches(true, 11, line, 0, 12));
+		assertTrue(utf16.regionMatches(true, 11, direct, 2, 12));
+		assertFalse(utf16.regionMatches(false, 11, direct, 2, 12));
+	}
+
+	@Test
+	public void subSequenceTest() {
+		FastStringDirect direct = wrap(fast("Content-Type: text/html"));
+		FastStringDirect name = direct.subSequence(0, 12);
+		assertEquals("Content-Type", name.toString());
+		assertTrue(name.equalsIgnoreCase(fast("CONTENT-TYPE")));
+		assertEquals(fast("content-type").hashCodeIgnoreCase(), name.hashCodeIgnoreCase());
+		assertEquals('T', name.charAt(8));
+		FastString copy = direct.subSequence(14, 23).toFastString();
+		assertEquals("text/html", copy.toString());
+		assertEquals(FastString.LATIN1, copy.coder());
+		assertEquals("Строка", wrap(fast("xСтрока")).subSequence(1, 7).toFastString().toString());
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import org.junit.Test;
+
+public class FastStringKeywordsTest {
+
+	@Test
+	public void indexOfTest() {
+		String[] headers = FastStringCIMapBenchmark.HEADERS;
+		FastStringKeywords keywords = FastStringKeywords.build(fast(headers));
+		assertEquals(headers.length, keywords.size());
+		for (int i = 0; i < headers.length; i++) {
+			assertEquals(headers[i], i, keywords.indexOf(fast(headers[i].toUpperCase())));
+			assertEquals(headers[i], i, keywords.indexOf(fast(headers[i].toLowerCase())));
+			assertEquals(headers[i], keywords.keyword(i).toString());
+		}
+		assertEquals(-1, keywords.indexOf(fast("X-Request-Id")));
+		assertEquals(-1, keywords.indexOf(fast("Content-Typ")));
+		assertEquals(-1, keywords.indexOf(fast("")));
+		assertFalse(keywords.contains(fast("Строка")));
+	}
+
+	@Test
+	public void largeTest() {
+		String[] words = new String[1000];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = ((i & 1) == 0 ? "keyword_" : "Слово_") + i;
+		}
+		FastStringKeywords keywords = FastStringKeywords.build(fast(words));
+		for (int i = 0; i < words.length; i++) {
+			assertEquals(i, keywords.indexOf(fast(words[i].toUpperCase())));
+		}
+		assertEquals(-1, keywords.indexOf(fast("keyword_1000")));
+	}
+
+	@Test
+	public void hashCollisionTest() {
+		assertEquals(fast("col_aq").hashCodeIgnoreCase(), fast("col_c3").hashCodeIgnoreCase());
+		FastStringKeywords pair = FastStringKeywords.build(fast("col_aq"), fast("col_c3"));
+		assertEquals(0, pair.indexOf(fast("COL_AQ")));
+		assertEquals(1, pair.indexOf(fast("Col_C3")));
+		// 31 * c1 + c2 repeats often, so most of these collide with others
+		String alphabet = "abcdefghijklmnopqrstuvwxyz0123456789_";
+		String[] words = new String[alphabet.length() * alphabet.length()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = "x_" + alphabet.charAt(i / alphabet.length()) + alphabet.charAt(i % alphabet.length());
+		}
+		FastStringKeywords keywords = FastStringKeywords.build(fast(words));
+		for (int i = 0; i < words.length; i++) {
+			assertEquals(words[i], i, keywords.indexOf(fast(words[i].toUpperCase())));
+		}
+		assertEquals(-1, keywords.indexOf(fast("x_aaa")));
+	}
+
+	@Test
+	public void emptyTest() {
+		FastStringKeywords keywords = FastStringKeywords.build();
+		assertEquals(0, keywords.size());
+		assertEquals(-1, keywords.indexOf(fast("Accept")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateTest() {
+		FastStringKeywords.build(fast("Accept"), fast("Host"), fast("ACCEPT"));
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FastStringMatcherTest {
+
+	private static final String ALPHABET = "abABs\u017fSkK\u212aµΜÿŸжЖ";
+
+	private static FastStringMatcher build(String... patterns) {
+		FastString[] fs = new FastString[patterns.length];
+		for (int i = 0; i < patterns.length; i++) {
+			fs[i] = fast(patterns[i]);
+		}
+		return FastStringMatcher.build(fs);
+	}
+
+	private static List<String> matches(FastStringMatcher matcher, String s) {
+		List<String> list = new ArrayList<>();
+		matcher.match(fast(s), (p, start, end) -> list.add(p + "@" + start + "-" + end));
+		return list;
+	}
+
+	/*
+	 * The matches by regionMatches(true, ...) in the order of the matcher:
+	 * by end, then longest first, then by pattern index.
+	 */
+	private static List<String> naive(String[] patterns, String s) {
+		List<String> list = new ArrayList<>();
+		for (int end = 1; end <= s.length(); end++) {
+			for (int len = end; len > 0; len--) {
+				for (int p = 0; p < patterns.length; p++) {
+					if (patterns[p].length() == len && s.regionMatches(true, end - len, patterns[p], 0, len)) {
+						list.add(p + "@" + (end - len) + "-" + end);
+					}
+				}
+			}
+		}
+		return list;
+	}
+
+	@Test
+	public void matchTest() {
+		String[] patterns = { "he", "she", "his", "hers", "SELECT", "union", "заголовок" };
+		FastStringMatcher matcher = build(patterns);
+		assertEquals(7, matcher.size());
+		assertEquals("his", matcher.pattern(2).toString());
+		for (String s : new String[] { "ushers", "USHERS", "1' UNION SELECT * --", "Заголовок: she", "", "xyz" }) {
+			assertEquals(s, naive(patterns, s), matches(matcher, s));
+		}
+		assertTrue(matcher.foundIn(fast("x-forwarded-for: Hers")));
+		assertFalse(matcher.foundIn(fast("x-forwarded-for: nothing")));
+	}
+
+	@Test
+	public void stopTest() {
+		FastStringMatcher matcher = build("a", "b");
+		List<Integer> seen = new ArrayList<>();
+		assertFalse(matcher.match(fast("xaxbxa"), (p, start, end) -> seen.add(p) && p != 1));
+		assertEquals("[0, 1]", seen.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void emptyPatternTest() {
+		build("a", "");
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(21);
+		for (int i = 0; i < 3000; i++) {
+			String[] patterns = new String[1 + random.nextInt(6)];
+			for (int p = 0; p < patterns.length; p++) {
+				patterns[p] = random(random, 1 + random.nextInt(3));
+			}
+			FastStringMatcher matcher = build(patterns);
+			for (int j = 0; j < 5; j++) {
+				String s = random(random, random.nextInt(30));
+				assertEquals(s, naive(patterns, s), matches(matcher, s));
+			}
+		}
+	}
+
+	/*
+	 * Latin1 or UTF16 text, half of the strings draw from ASCII only
+	 */
+	private static String random(Random random, int length) {
+		int bound = random.nextBoolean() ? 4 : ALPHABET.length();
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(random.nextInt(bound)));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FastStringNeedleTest {
+
+	private static final String ALPHABET = "aAbBsS\u017fkK\u212aµΜμÿŸàÀжЖ-";
+
+	/*
+	 * The definition: the first k >= from where regionMatches(true, ...)
+	 */
+	private static int naive(String haystack, String needle, int from) {
+		for (int k = Math.max(from, 0); k <= haystack.length() - needle.length(); k++) {
+			if (haystack.regionMatches(true, k, needle, 0, needle.length())) {
+				return k;
+			}
+		}
+		return -1;
+	}
+
+	private static void assertIndexOf(String haystack, String needle, int from) {
+		int expected = needle.isEmpty() ? Math.min(Math.max(from, 0), haystack.length())
+				: naive(haystack, needle, from);
+		FastString h = fast(haystack);
+		FastString n = fast(needle);
+		String message = haystack + " / " + needle + " / " + from;
+		assertEquals(message, expected, h.indexOfIgnoreCase(n, from));
+		assertEquals(message, expected, FastStringNeedle.compile(n).indexIn(h, from));
+	}
+
+	@Test
+	public void indexOfIgnoreCaseTest() {
+		assertIndexOf("Content-Type: text/html; charset=UTF-8", "CHARSET", 0);
+		assertIndexOf("Content-Type: text/html; charset=UTF-8", "content-type", 1);
+		assertIndexOf("Content-Type: text/html; charset=UTF-8", "utf-8", 0);
+		assertIndexOf("abc", "", 2);
+		assertIndexOf("abc", "", 5);
+		assertIndexOf("abc", "abcd", 0);
+		assertIndexOf("abc", "C", -3);
+		assertIndexOf("Заголовок-Запроса", "запроса", 0);
+		assertIndexOf("Заголовок-Запроса", "ЗАГ", 0);
+		assertIndexOf("header", "ЗАГ", 0);
+		assertIndexOf("MICRO µ", "μ", 0);
+		assertIndexOf("kelvin", "\u212a", 0);
+		assertIndexOf("ſtring", "STR", 0);
+		assertIndexOf("xŸ", "ÿ", 0);
+
+		// longer than FastStringNeedle.SCAN_LIMIT
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			sb.append("Text, ");
+		}
+		assertIndexOf(sb + "TEXT/html", "text/HTML", 0);
+		assertIndexOf(sb + "Заголовок", "заголовок", 3);
+		assertIndexOf(sb.toString(), "text, text", 5);
+
+		assertTrue(fast("Accept-Encoding: GZIP").containsIgnoreCase(fast("gzip")));
+		assertFalse(fast("Accept-Encoding: deflate").containsIgnoreCase(fast("gzip")));
+	}
+
+	@Test
+	public void randomTest() {
+		Random random = new Random(20);
+		for (int i = 0; i < 20000; i++) {
+			String haystack = random(random, random.nextInt(40));
+			String needle = random(random, 1 + random.nextInt(4));
+			assertIndexOf(haystack, needle, random.nextInt(8) - 2);
+			// a needle cut from the haystack with its case changed
+			if (haystack.length() > 4) {
+				int begin = random.nextInt(haystack.length() - 4);
+				String cut = haystack.substring(begin, begin + 1 + random.nextInt(4));
+				assertIndexOf(haystack, cut.toUpperCase(), 0);
+				assertIndexOf(haystack, cut.toLowerCase(), begin);
+			}
+		}
+	}
+
+	/*
+	 * Latin1 or UTF16 text, half of the strings draw from ASCII only
+	 */
+	private static String random(Random random, int length) {
+		int bound = random.nextBoolean() ? 6 : ALPHABET.length();
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(random.nextInt(bound)));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class FastStringPoolTest {
+
+	@Test
+	public void internTest() {
+		FastStringPool pool = new FastStringPool();
+		FastString a = fast("Content-Type");
+		assertSame(a, pool.intern(a));
+		assertSame(a, pool.intern(fast("Content-Type")));
+		assertSame(a, pool.get(fast("Content-Type")));
+		FastString b = fast("content-type");
+		assertSame(b, pool.intern(b));
+		FastString c = fast("Строка");
+		assertSame(c, pool.intern(c));
+		assertSame(c, pool.intern(fast("Строка")));
+		assertNull(pool.get(fast("Content-Length")));
+		assertEquals(3, pool.size());
+	}
+
+	@Test
+	public void internIgnoreCaseTest() {
+		FastStringPool pool = new FastStringPool(true, FastStringPool.Reclamation.SOFT);
+		FastString a = fast("Content-Type");
+		assertSame(a, pool.intern(a));
+		assertSame(a, pool.intern(fast("CONTENT-TYPE")));
+		assertSame(a, pool.get(fast("content-type")));
+		FastString c = fast("Строка");
+		assertSame(c, pool.intern(c));
+		assertSame(c, pool.intern(fast("СТРОКА")));
+		assertEquals(2, pool.size());
+	}
+
+	@Test
+	public void resizeTest() {
+		FastStringPool pool = new FastStringPool(true, FastStringPool.Reclamation.WEAK);
+		List<FastString> keys = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			FastString key = fast("Key-" + i);
+			keys.add(key);
+			assertSame(key, pool.intern(key));
+		}
+		for (int i = 0; i < keys.size(); i++) {
+			assertSame(keys.get(i), pool.intern(fast("KEY-" + i)));
+		}
+		assertEquals(keys.size(), pool.size());
+	}
+
+	@Test
+	public void reclamationTest() throws InterruptedException {
+		FastStringPool pool = new FastStringPool();
+		for (int i = 0; i < 1000; i++) {
+			pool.intern(fast("Key-" + i));
+		}
+		FastString kept = pool.intern(fast("Kept"));
+		for (int i = 0; i < 100 && pool.size() > 1; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(1, pool.size());
+		assertSame(kept, pool.intern(fast("Kept")));
+		// dead references are dropped when the table is rebuilt
+		for (int i = 0; i < 1000; i++) {
+			assertNotNull(pool.intern(fast("Key-" + i)));
+		}
+	}
+
+	@Test
+	public void concurrentInternTest() throws Exception {
+		final FastStringPool pool = new FastStringPool(true, FastStringPool.Reclamation.WEAK);
+		final int threads = 4;
+		final int keys = 5000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<FastString[]>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final boolean upper = (t & 1) == 0;
+				futures.add(executor.submit(new Callable<FastString[]>() {
+					@Override
+					public FastString[] call() {
+						FastString[] interned = new FastString[keys];
+						for (int i = 0; i < keys; i++) {
+							interned[i] = pool.intern(fast((upper ? "KEY-" : "key-") + i));
+						}
+						return interned;
+					}
+				}));
+			}
+			FastString[] first = futures.get(0).get();
+			for (Future<FastString[]> future : futures) {
+				FastString[] interned = future.get();
+				for (int i = 0; i < keys; i++) {
+					assertSame(first[i], interned[i]);
+				}
+			}
+			assertEquals(keys, pool.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+import static org.junit.Assert.*;
+import static su.tweak.openjdk.TestStrings.fast;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class FastStringsTest {
+
+	private static final String[] NAMES = { "Ivanov", "IVANOV", "ivanova", "Иванов", "иванов", "Müller", "MÜLLER",
+			"" };
+
+	@Test
+	public void equalsIgnoreCaseAllTest() {
+		Random random = new Random(24);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int n : new int[] { 0, 1, 63, 64, 65, 1000, 5000 }) {
+				FastString[] a = new FastString[n];
+				FastString[] b = new FastString[n];
+				BitSet expected = new BitSet();
+				for (int i = 0; i < n; i++) {
+					String s1 = NAMES[random.nextInt(NAMES.length)];
+					String s2 = NAMES[random.nextInt(NAMES.length)];
+					a[i] = (i % 97 == 5) ? null : fast(s1);
+					b[i] = (i % 89 == 5) ? null : fast(s2);
+					if ((a[i] == null) ? b[i] == null : b[i] != null && s1.equalsIgnoreCase(s2)) {
+						expected.set(i);
+					}
+				}
+				for (int threshold : new int[] { 1, 64, 100, FastStrings.DEFAULT_THRESHOLD }) {
+					boolean[] out = new boolean[n];
+					FastStrings.equalsIgnoreCaseAll(a, b, out, pool, threshold);
+					for (int i = 0; i < n; i++) {
+						assertEquals(n + "/" + threshold + "/" + i, expected.get(i), out[i]);
+					}
+					assertEquals(n + "/" + threshold, expected, FastStrings.equalsIgnoreCaseAll(a, b, pool, threshold));
+				}
+				assertEquals(expected, FastStrings.equalsIgnoreCaseAll(a, b));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lengthsTest() {
+		FastStrings.equalsIgnoreCaseAll(new FastString[2], new FastString[2], new boolean[1]);
+	}
+
+}
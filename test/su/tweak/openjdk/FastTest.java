@@ -19,6 +19,8 @@ package su.tweak.openjdk;
 
 import static org.junit.Assert.*;
 
+import java.util.regex.Pattern;
+
 import org.junit.Test;
 
 public class FastTest {
@@ -30,17 +32,276 @@ public class FastTest {
 	private static final FastString FAST_STRING = new FastString(STRING.toCharArray());
 	private static final FastString FAST_STRING_2 = new FastString((STRING + "2").toCharArray());
 	private static final FastString FAST_STRING_3 = new FastString((STRING + "3").toCharArray());
+
+	private static final FastString _UTF16_FAST_STRING = new FastString("Строка".toCharArray());
+	private static final FastString UTF16_FAST_STRING = new FastString("строка".toCharArray());
+	private static final FastString MIXED_FAST_STRING = new FastString("stringЖ".toCharArray());
+	
+	@Test
+	public void coderTest() {
+		assertEquals(FastString.LATIN1, FAST_STRING.coder());
+		assertEquals(FastString.LATIN1, new FastString("ÀÿÞ".toCharArray()).coder());
+		assertEquals(FastString.UTF16, UTF16_FAST_STRING.coder());
+		assertEquals(FastString.UTF16, MIXED_FAST_STRING.coder());
+		assertEquals(6, FAST_STRING.length());
+		assertEquals(6, UTF16_FAST_STRING.length());
+		assertArrayEquals("stringЖ".toCharArray(), MIXED_FAST_STRING.toCharArray());
+	}
 	
 	@Test
 	public void equalTest() {
 		assertTrue(_FAST_STRING.equalsIgnoreCase(FAST_STRING));
 		assertTrue(_FAST_STRING.equalsIgnoreCase(_FAST_STRING));
+		assertTrue(UTF16_FAST_STRING.equalsIgnoreCase(_UTF16_FAST_STRING));
+		assertTrue(new FastString("STRINGж".toCharArray()).equalsIgnoreCase(MIXED_FAST_STRING));
 	}
 	
+	@Test
+	public void latin1FoldTest() {
+		for (char c1 = 0; c1 < 256; c1++) {
+			FastString f1 = new FastString(new char[] { 'x', c1 });
+			for (char c2 = 0; c2 < 256; c2++) {
+				FastString f2 = new FastString(new char[] { 'X', c2 });
+				boolean expected = String.valueOf(c1).equalsIgnoreCase(String.valueOf(c2));
+				assertEquals(c1 + " vs " + c2, expected, f1.equalsIgnoreCase(f2));
+				assertEquals(c1 + " vs " + c2, expected, f1.regionMatches(true, 1, f2, 1, 1));
+			}
+		}
+	}
+
+	@Test
+	public void swarTest() {
+		String upper = "ABCDEFGHIJKLMNOPQRSTUVWXYZ@[`{0123456789-_";
+		String lower = "abcdefghijklmnopqrstuvwxyz@[`{0123456789-_";
+		String latin1 = "ÀÁÂÃÄÅÆÇÈÉÊËÌÍÎÏÐÑÒÓÔÕÖØÙÚÛÜÝÞ";
+		String latin1Lower = "àáâãäåæçèéêëìíîïðñòóôõöøùúûüýþ";
+		for (int len = 0; len <= upper.length(); len++) {
+			for (int mismatch = -1; mismatch < len; mismatch++) {
+				char[] a = upper.substring(0, len).toCharArray();
+				char[] b = lower.substring(0, len).toCharArray();
+				if (mismatch >= 0) {
+					b[mismatch] ^= 0x01;
+				}
+				assertSwar(a, b);
+				if (len > 0) {
+					a[len / 2] = latin1.charAt(len % latin1.length());
+					b[len / 2] = latin1Lower.charAt(len % latin1.length());
+					assertSwar(a, b);
+					a[len - 1] = 'Ж';
+					b[len - 1] = 'ж';
+					assertSwar(a, b);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void longStringTest() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		String lower = sb.toString();
+		char[] upper = lower.toUpperCase().toCharArray();
+		for (int len : new int[] { 31, 32, 33, 64, 100, 300 }) {
+			for (int mismatch : new int[] { -1, 0, len / 2, len - 1 }) {
+				char[] a = lower.substring(0, len).toCharArray();
+				char[] b = new String(upper, 0, len).toCharArray();
+				if (mismatch >= 0) {
+					b[mismatch] = '#';
+				}
+				assertSwar(a, b);
+				a[len - 2] = 'é';
+				b[len - 2] = 'É';
+				assertSwar(a, b);
+				a[len / 3] = 'ж';
+				b[len / 3] = 'Ж';
+				assertSwar(a, b);
+			}
+		}
+	}
+
+	private static void assertSwar(char[] a, char[] b) {
+		boolean expected = new String(a).equalsIgnoreCase(new String(b));
+		FastString fa = new FastString(a);
+		FastString fb = new FastString(b);
+		assertEquals(new String(a) + " vs " + new String(b), expected, fa.equalsIgnoreCase(fb));
+		assertEquals(new String(a) + " vs " + new String(b), expected, fb.equalsIgnoreCase(fa));
+		if (a.length > 1) {
+			boolean region = new String(a).regionMatches(true, 1, new String(b), 1, a.length - 1);
+			assertEquals(region, fa.regionMatches(true, 1, fb, 1, a.length - 1));
+		}
+	}
+
+	@Test
+	public void hashCodeTest() {
+		assertEquals(STRING.hashCode(), FAST_STRING.hashCode());
+		assertEquals("Строка".hashCode(), _UTF16_FAST_STRING.hashCode());
+		assertEquals(0, new FastString(new char[0]).hashCode());
+		assertEquals(FAST_STRING, new FastString(STRING.toCharArray()));
+		assertEquals(FAST_STRING.hashCode(), new FastString(STRING.toCharArray()).hashCode());
+		assertNotEquals(FAST_STRING, _FAST_STRING);
+		assertNotEquals(FAST_STRING, STRING);
+	}
+
+	@Test
+	public void hashCodeIgnoreCaseTest() {
+		assertEquals(FAST_STRING.hashCodeIgnoreCase(), _FAST_STRING.hashCodeIgnoreCase());
+		assertEquals(UTF16_FAST_STRING.hashCodeIgnoreCase(), _UTF16_FAST_STRING.hashCodeIgnoreCase());
+		assertNotEquals(FAST_STRING.hashCodeIgnoreCase(), FAST_STRING_2.hashCodeIgnoreCase());
+		// Latin1 'ÿ' and UTF16 'Ÿ'
+		FastString latin1 = new FastString("xÿ".toCharArray());
+		FastString utf16 = new FastString("XŸ".toCharArray());
+		assertTrue(latin1.equalsIgnoreCase(utf16));
+		assertEquals(latin1.hashCodeIgnoreCase(), utf16.hashCodeIgnoreCase());
+		for (char c = 0; c < Character.MAX_VALUE; c++) {
+			FastString s = new FastString(new char[] { c });
+			for (char o : new char[] { Character.toUpperCase(c), Character.toLowerCase(c),
+					Character.toTitleCase(c) }) {
+				FastString other = new FastString(new char[] { o });
+				if (s.equalsIgnoreCase(other)) {
+					assertEquals("char " + (int) c, s.hashCodeIgnoreCase(), other.hashCodeIgnoreCase());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void compareToTest() {
+		String[] strings = { "", "a", "A", "b", "ab", "aB", "string", "String", "STRING", "string2",
+				"identifier_name_01", "IDENTIFIER_NAME_01", "identifier_name_02", "Identifier_Name_1",
+				"àé", "ÀÉ", "ÿ", "Ÿ", "µ", "Μ", "Строка", "строка", "строкаA", "stringЖ", "STRINGж" };
+		for (String s1 : strings) {
+			FastString f1 = new FastString(s1.toCharArray());
+			for (String s2 : strings) {
+				FastString f2 = new FastString(s2.toCharArray());
+				assertEquals(s1 + " vs " + s2, Integer.signum(s1.compareTo(s2)), Integer.signum(f1.compareTo(f2)));
+				assertEquals(s1 + " vs " + s2, String.CASE_INSENSITIVE_ORDER.compare(s1, s2),
+						FastString.CASE_INSENSITIVE_ORDER.compare(f1, f2));
+			}
+		}
+	}
+
+	@Test
+	public void foldedTest() {
+		String[] strings = { "", "a", "A", "string", "String", "STRING", "string2", "àé", "ÀÉ", "xÿ", "XŸ", "µ",
+				"Μ", "μ", "Строка", "строка", "СТРОКА", "stringЖ", "STRINGж" };
+		for (String s1 : strings) {
+			FastString f1 = new FastString(s1.toCharArray());
+			FastString folded1 = FastString.folded(f1);
+			assertTrue(folded1.isFolded());
+			assertFalse(f1.isFolded());
+			assertSame(folded1, FastString.folded(folded1));
+			assertEquals(s1, folded1.toString());
+			assertEquals(s1, f1.hashCodeIgnoreCase(), folded1.hashCodeIgnoreCase());
+			for (String s2 : strings) {
+				FastString f2 = new FastString(s2.toCharArray());
+				FastString folded2 = FastString.folded(f2);
+				boolean expected = f1.equalsIgnoreCase(f2);
+				assertEquals(s1 + " vs " + s2, expected, folded1.equalsIgnoreCase(folded2));
+				assertEquals(s1 + " vs " + s2, expected, folded1.equalsIgnoreCase(f2));
+				assertEquals(s1 + " vs " + s2, expected, f1.equalsIgnoreCase(folded2));
+			}
+		}
+		for (char c = 0; c < Character.MAX_VALUE; c++) {
+			FastString s = new FastString(new char[] { c });
+			FastString folded = FastString.folded(s);
+			for (char o : new char[] { Character.toUpperCase(c), Character.toLowerCase(c),
+					Character.toTitleCase(c), (char) (c + 1) }) {
+				FastString other = new FastString(new char[] { o });
+				assertEquals("char " + (int) c, s.equalsIgnoreCase(other),
+						folded.equalsIgnoreCase(FastString.folded(other)));
+			}
+		}
+	}
+
+	@Test
+	public void subSequenceTest() {
+		FastString line = new FastString("Content-Type: text/html".toCharArray());
+		FastStringView name = line.subSequence(0, 12);
+		assertEquals(12, name.length());
+		assertEquals('C', name.charAt(0));
+		assertEquals("Content-Type", name.toString());
+		assertTrue(name.equalsIgnoreCase(new FastString("CONTENT-TYPE".toCharArray())));
+		assertFalse(name.equalsIgnoreCase(new FastString("CONTENT-TYP".toCharArray())));
+		assertTrue(name.regionMatches(true, 8, new FastString("TYPE".toCharArray()), 0, 4));
+		assertFalse(name.regionMatches(8, new FastString("TYPE".toCharArray()), 0, 4));
+		assertFalse(name.regionMatches(true, 8, new FastString("TYPES".toCharArray()), 0, 5));
+		assertEquals("Type", name.subSequence(8, 12).toString());
+		FastString copy = name.toFastString();
+		assertEquals(new FastString("Content-Type".toCharArray()), copy);
+
+		FastString utf16 = new FastString("Ключ: Значение".toCharArray());
+		FastStringView key = utf16.subSequence(0, 4);
+		assertTrue(key.equalsIgnoreCase(new FastString("КЛЮЧ".toCharArray())));
+		assertEquals(FastString.UTF16, key.toFastString().coder());
+		FastStringView space = utf16.subSequence(4, 6);
+		assertEquals(FastString.LATIN1, space.toFastString().coder());
+		assertArrayEquals(": ".toCharArray(), space.toFastString().toCharArray());
+	}
+
+	@Test(expected = StringIndexOutOfBoundsException.class)
+	public void subSequenceBoundsTest() {
+		FAST_STRING.subSequence(2, 1);
+	}
+
+	@Test
+	public void charSequenceTest() {
+		for (String s : new String[] { "", "string", "Строка", "stringЖ", "x\uD83D\uDE00y" }) {
+			FastString f = new FastString(s.toCharArray());
+			assertEquals(s, f.toString());
+			for (int i = 0; i < s.length(); i++) {
+				assertEquals(s.charAt(i), f.charAt(i));
+			}
+			char[] dst = new char[s.length() + 2];
+			f.getChars(0, s.length(), dst, 1);
+			assertEquals(s, new String(dst, 1, s.length()));
+			assertArrayEquals(s.chars().toArray(), f.chars().toArray());
+			assertArrayEquals(s.codePoints().toArray(), f.codePoints().toArray());
+			assertEquals(s.chars().sum(), f.chars().parallel().sum());
+			assertEquals(s.length(), new StringBuilder().append(f).length());
+		}
+		assertTrue(Pattern.compile("took (\\d+) ms").matcher(new FastString("GET took 15 ms".toCharArray())).find());
+	}
+
+	@Test
+	public void utf16ByteOrderTest() {
+		// the bytes of each char differ, so a swapped byte order reads other chars
+		char[] alphabet = { '\u0412', '\u1204', '\u3041', '\u4130', '\uabcd', '\ucdab', '\u0100', 'a' };
+		StringBuilder sb = new StringBuilder();
+		for (int length = 1; length <= 40; length++) {
+			sb.append(alphabet[(length * 5) % alphabet.length]);
+			String s = sb.toString();
+			FastString f = new FastString(s.toCharArray());
+			for (int i = 0; i < length; i++) {
+				assertEquals(s.charAt(i), f.charAt(i));
+			}
+			for (int begin = 0; begin < Math.min(length, 9); begin++) {
+				char[] dst = new char[length - begin + 1];
+				f.getChars(begin, length, dst, 1);
+				assertEquals(s.substring(begin), new String(dst, 1, length - begin));
+			}
+			assertEquals(s.hashCode(), f.hashCode());
+		}
+		assertNotEquals(new FastString(new char[] { '\u0412' }), new FastString(new char[] { '\u1204' }));
+	}
+
+	@Test(expected = StringIndexOutOfBoundsException.class)
+	public void charAtBoundsTest() {
+		FAST_STRING.charAt(6);
+	}
+
+	@Test(expected = StringIndexOutOfBoundsException.class)
+	public void charAtBoundsUTF16Test() {
+		UTF16_FAST_STRING.charAt(-1);
+	}
+
 	@Test
 	public void notEqualTest() {
 		assertFalse(_FAST_STRING.equalsIgnoreCase(FAST_STRING_2));
 		assertFalse(FAST_STRING_2.equalsIgnoreCase(FAST_STRING_3));
+		assertFalse(FAST_STRING.equalsIgnoreCase(UTF16_FAST_STRING));
+		assertFalse(new FastString("stringA".toCharArray()).equalsIgnoreCase(MIXED_FAST_STRING));
 	}
 
 }
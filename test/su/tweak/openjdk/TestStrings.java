@@ -0,0 +1,40 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk;
+
+/**
+ * Test shorthands for building {@link FastString} instances.
+ */
+final class TestStrings {
+
+	private TestStrings() {
+	}
+
+	static FastString fast(String s) {
+		return new FastString(s.toCharArray());
+	}
+
+	static FastString[] fast(String[] s) {
+		FastString[] f = new FastString[s.length];
+		for (int i = 0; i < s.length; i++) {
+			f[i] = fast(s[i]);
+		}
+		return f;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ *   Copyright (C) 2016  Volodin Andrey
+ *
+ *   This program is free software; you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation; either version 2 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with this program; if not, write to the Free Software Foundation, Inc.,
+ *   51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package su.tweak.openjdk.bench;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BaselineTest {
+
+	private static final String RESULTS = "[\n"
+			+ "  { \"benchmark\" : \"a.B.fast\", \"mode\" : \"avgt\", \"threads\" : 1,\n"
+			+ "    \"params\" : { \"length\" : \"64\", \"coder\" : \"UTF16\" },\n"
+			+ "    \"primaryMetric\" : { \"score\" : 12.5, \"scoreError\" : 0.25, \"scoreUnit\" : \"ns/op\",\n"
+			+ "      \"scoreConfidence\" : [ 12.25, 12.75 ], \"rawData\" : [ [ 12.4, 12.6 ] ] },\n"
+			+ "    \"secondaryMetrics\" : { } },\n"
+			+ "  { \"benchmark\" : \"a.B.thrpt\", \"mode\" : \"thrpt\",\n"
+			+ "    \"primaryMetric\" : { \"score\" : 1.0E2, \"scoreError\" : \"NaN\", \"scoreUnit\" : \"ops/us\" } }\n"
+			+ "]";
+
+	private static BenchmarkResult result(String mode, double score, double error) {
+		return result(mode, score, error, "ns/op");
+	}
+
+	private static BenchmarkResult result(String mode, double score, double error, String unit) {
+		return new BenchmarkResult("a.B.x", mode, Collections.<String, String> emptyMap(), score, error, unit);
+	}
+
+	@Test
+	public void parseTest() {
+		List<BenchmarkResult> results = BenchmarkResult.parse(RESULTS);
+		assertEquals(2, results.size());
+		BenchmarkResult fast = results.get(0);
+		assertEquals("a.B.fast{coder=UTF16, length=64}", fast.key());
+		assertEquals("avgt", fast.mode());
+		assertEquals(12.5, fast.score(), 0);
+		assertEquals(0.25, fast.scoreError(), 0);
+		assertEquals("ns/op", fast.unit());
+		BenchmarkResult thrpt = results.get(1);
+		assertEquals("a.B.thrpt", thrpt.key());
+		assertEquals(100, thrpt.score(), 0);
+		assertTrue(Double.isNaN(thrpt.scoreError()));
+		assertTrue(thrpt.higherIsBetter());
+	}
+
+	@Test
+	public void verdictTest() {
+		assertEquals(Verdict.UNCHANGED, Comparison.verdict(result("avgt", 10, 1), result("avgt", 11.5, 1)));
+		assertEquals(Verdict.SLOWER, Comparison.verdict(result("avgt", 10, 1), result("avgt", 12.5, 1)));
+		assertEquals(Verdict.FASTER, Comparison.verdict(result("avgt", 10, 1), result("avgt", 7.5, 1)));
+		assertEquals(Verdict.FASTER, Comparison.verdict(result("thrpt", 10, 1), result("thrpt", 12.5, 1)));
+		assertEquals(Verdict.SLOWER, Comparison.verdict(result("thrpt", 10, 1), result("thrpt", 7.5, 1)));
+		assertEquals(Verdict.UNCHANGED, Comparison.verdict(result("avgt", 10, Double.NaN), result("avgt", 20, 0)));
+		assertEquals(Verdict.MISSING, Comparison.verdict(result("avgt", 10, 1), null));
+		assertEquals(Verdict.MISSING, Comparison.verdict(result("avgt", 10, 1), result("thrpt", 10, 1)));
+		// 10 ns/op against 0.5 us/op is not faster
+		assertEquals(Verdict.MISSING, Comparison.verdict(result("avgt", 10, 1), result("avgt", 0.5, 0.1, "us/op")));
+	}
+
+	@Test
+	public void compareTest() {
+		List<BenchmarkResult> baseline = BenchmarkResult.parse(RESULTS);
+		List<BenchmarkResult> current = Collections.singletonList(new BenchmarkResult("a.B.new", "avgt",
+				Collections.<String, String> emptyMap(), 1, 0.1, "ns/op"));
+		List<Comparison> comparisons = Comparison.compare(baseline, current);
+		assertEquals(3, comparisons.size());
+		assertEquals("a.B.new", comparisons.get(0).key());
+		assertNull(comparisons.get(0).baseline());
+		for (Comparison c : comparisons) {
+			assertEquals(Verdict.MISSING, c.verdict());
+		}
+		comparisons = Comparison.compare(baseline, baseline);
+		assertEquals(2, comparisons.size());
+		for (Comparison c : comparisons) {
+			assertEquals(Verdict.UNCHANGED, c.verdict());
+			assertEquals(0, c.change(), 0);
+		}
+	}
+
+}